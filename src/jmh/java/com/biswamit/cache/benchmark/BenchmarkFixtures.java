@@ -0,0 +1,131 @@
+package com.biswamit.cache.benchmark;
+
+import com.biswamit.cache.bus.InvalidationBus;
+import com.biswamit.cache.config.CacheSegments;
+import com.biswamit.cache.config.CacheTtlProperties;
+import com.biswamit.cache.config.PerKeyExpiryPolicy;
+import com.biswamit.cache.config.TtlRuleIndex;
+import com.biswamit.cache.config.ValueCanonicalizer;
+import com.biswamit.cache.event.RemovalEvents;
+import com.biswamit.cache.key.CacheGroupRegistry;
+import com.biswamit.cache.key.CacheKey;
+import com.biswamit.cache.key.GroupKeyIndex;
+import com.biswamit.cache.model.TenantEventSetting;
+import com.biswamit.cache.model.TenantMapper;
+import com.biswamit.cache.service.LoadCoalescer;
+import com.biswamit.cache.service.TimeExpiringCacheService;
+import com.biswamit.cache.stats.CacheStatistics;
+import com.biswamit.cache.tier.OffHeapTier;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Shared set-up for the benchmarks. Builds the caches without starting a Spring context, using the
+ * rules from application.properties and the same {@link PerKeyExpiryPolicy} as {@code CacheConfig}.
+ * Unlike {@code CacheConfig}, the caches have no scheduler and only the listeners a benchmark
+ * measures: the {@link GroupKeyIndex}, and with a ticker the {@link CacheStatistics}. So removal
+ * events and scheduled expiry are not part of the numbers.
+ */
+final class BenchmarkFixtures {
+
+    static final String EVENT_SETTING_GROUP = "matrix.event.setting";
+    static final String TENANT_MAPPER_GROUP = "odyssey.tenant.mapper";
+    static final String TRACING_GROUP = "tracing";
+    static final String SPECIFIC_TENANT_ID = "cbec5243-e668-467e-8b67-d236510181b1";
+
+    private BenchmarkFixtures() {
+    }
+
+    static CacheTtlProperties ttlProperties() {
+        CacheTtlProperties properties = new CacheTtlProperties();
+        properties.setDefaultTtl(Duration.ofMinutes(15));
+        properties.getKeys().put(EVENT_SETTING_GROUP, Duration.ofMinutes(10));
+        properties.getKeys().put(TENANT_MAPPER_GROUP, Duration.ofMinutes(12));
+        properties.getKeys().put(TRACING_GROUP, Duration.ofMinutes(5));
+        properties.getKeys().put(EVENT_SETTING_GROUP + "." + SPECIFIC_TENANT_ID, Duration.ofMinutes(5));
+        properties.getKeys().put(TENANT_MAPPER_GROUP + "." + SPECIFIC_TENANT_ID, Duration.ofMinutes(10));
+        properties.getKeys().put(TRACING_GROUP + ".matrix.otel", Duration.ofMinutes(3));
+        return properties;
+    }
+
+    static CacheGroupRegistry groupRegistry() {
+        return new CacheGroupRegistry(TtlRuleIndex.compile(ttlProperties()));
+    }
+
+    static Cache<CacheKey, Object> cache(GroupKeyIndex groupKeyIndex) {
+        return Caffeine.newBuilder()
+                .expireAfter(new PerKeyExpiryPolicy())
+                .removalListener(groupKeyIndex)
+                .build();
+    }
+
+    /**
+     * Builds a cache that reads time from the given ticker and runs its maintenance and removal
+     * listeners on the calling thread, so that a driven clock expires entries deterministically.
+     */
+    static Cache<CacheKey, Object> cache(GroupKeyIndex groupKeyIndex, CacheStatistics statistics, Ticker ticker) {
+        return Caffeine.newBuilder()
+                .expireAfter(new PerKeyExpiryPolicy())
+                .ticker(ticker)
+                .executor(Runnable::run)
+                .removalListener((CacheKey key, Object value, RemovalCause cause) -> {
+                    groupKeyIndex.onRemoval(key, value, cause);
+                    statistics.onRemoval(key, value, cause);
+                })
+                .build();
+    }
+
+    static TimeExpiringCacheService service(CacheGroupRegistry groupRegistry) {
+        GroupKeyIndex groupKeyIndex = new GroupKeyIndex();
+        CacheSegments segments = new CacheSegments(cache(groupKeyIndex), Map.of(), limit -> cache(groupKeyIndex));
+        return new TimeExpiringCacheService(segments, groupRegistry, groupKeyIndex,
+                new CacheStatistics(groupKeyIndex), OffHeapTier.disabled(), InvalidationBus.disabled(),
+                ForkJoinPool.commonPool(), LoadCoalescer.disabled(), new RemovalEvents(),
+                ValueCanonicalizer.disabled());
+    }
+
+    /**
+     * @return {@code count} distinct canonical tenant ids, reproducible for a given seed.
+     */
+    static String[] tenantIds(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        String[] ids = new String[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = new UUID(random.nextLong(), random.nextLong()).toString();
+        }
+        return ids;
+    }
+
+    static TenantMapper tenantMapper(String tenantId, int i) {
+        String odsyId = "odsy" + Integer.toHexString(i);
+        return new TenantMapper(tenantId, odsyId, i % 2 == 0 ? "us-east-1" : "us-west-2",
+                "https://" + odsyId + ".qa.ingest.apps.avenger.com/ingest/" + odsyId + "/events", true);
+    }
+
+    static TenantEventSetting tenantEventSetting(int i) {
+        return i % 4 == 0
+                ? new TenantEventSetting(List.of("*"), List.of("dlpEventId1", "dlpEventId2"))
+                : new TenantEventSetting(List.of("ensEvent" + i), List.of());
+    }
+
+    /**
+     * @return a shuffled access order of size {@code size} (a power of two) over {@code [0, bound)}.
+     */
+    static int[] accessOrder(int size, int bound, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = random.nextInt(bound);
+        }
+        return order;
+    }
+}
@@ -0,0 +1,41 @@
+package com.biswamit.cache.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+
+/**
+ * Runs the benchmarks once per thread count with the GC profiler enabled, so that the
+ * results report {@code gc.alloc.rate.norm} (bytes allocated per operation) next to throughput.
+ * JSON results are written to {@code target/jmh-<threads>t.json} for comparison across runs.
+ *
+ * Usage: {@code BenchmarkRunner [includeRegex] [threadCounts]}, e.g. {@code ".*Service.*" 1,4,16}.
+ */
+public final class BenchmarkRunner {
+
+    private static final String DEFAULT_THREAD_COUNTS = "1,4,16";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*";
+        String threadCounts = args.length > 1 ? args[1] : DEFAULT_THREAD_COUNTS;
+        int[] threads = Arrays.stream(threadCounts.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+        for (int threadCount : threads) {
+            Options options = new OptionsBuilder()
+                    .include(BenchmarkRunner.class.getPackageName() + "." + include)
+                    .threads(threadCount)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("target/jmh-" + threadCount + "t.json")
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
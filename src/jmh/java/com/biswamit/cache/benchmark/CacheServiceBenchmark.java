@@ -0,0 +1,104 @@
+package com.biswamit.cache.benchmark;
+
+import com.biswamit.cache.key.CacheGroupRegistry;
+import com.biswamit.cache.model.TenantEventSetting;
+import com.biswamit.cache.model.TenantMapper;
+import com.biswamit.cache.service.CacheRegion;
+import com.biswamit.cache.service.TimeExpiringCacheService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link TimeExpiringCacheService#put} and {@link TimeExpiringCacheService#get},
+ * and of the typed {@link CacheRegion#getOrNull}, across key cardinalities and hit ratios.
+ * Thread counts are supplied by {@link BenchmarkRunner}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheServiceBenchmark {
+
+    private static final int ACCESS_ORDER_SIZE = 1 << 16;
+    private static final int ACCESS_ORDER_MASK = ACCESS_ORDER_SIZE - 1;
+
+    @Param({"1000", "100000"})
+    int keyCount;
+
+    @Param({"1.0", "0.8"})
+    double hitRatio;
+
+    private TimeExpiringCacheService service;
+    private CacheRegion<TenantEventSetting> eventSettingRegion;
+    private String[] tenantIds;
+    private TenantMapper[] tenantMappers;
+    private TenantEventSetting[] eventSettings;
+    private int[] accessOrder;
+
+    @Setup
+    public void setUp() {
+        CacheGroupRegistry groupRegistry = BenchmarkFixtures.groupRegistry();
+        service = BenchmarkFixtures.service(groupRegistry);
+
+        // Only the first keyCount ids are cached, the rest of the id space always misses
+        int idSpace = (int) Math.ceil(keyCount / hitRatio);
+        tenantIds = BenchmarkFixtures.tenantIds(idSpace, 42L);
+        tenantMappers = new TenantMapper[keyCount];
+        eventSettings = new TenantEventSetting[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            tenantMappers[i] = BenchmarkFixtures.tenantMapper(tenantIds[i], i);
+            eventSettings[i] = BenchmarkFixtures.tenantEventSetting(i);
+            service.put(BenchmarkFixtures.TENANT_MAPPER_GROUP, tenantIds[i], tenantMappers[i]);
+            service.put(BenchmarkFixtures.EVENT_SETTING_GROUP, tenantIds[i], eventSettings[i]);
+        }
+        accessOrder = BenchmarkFixtures.accessOrder(ACCESS_ORDER_SIZE, idSpace, 7L);
+        eventSettingRegion = service.region(BenchmarkFixtures.EVENT_SETTING_GROUP, TenantEventSetting.class);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next() {
+            return next++ & ACCESS_ORDER_MASK;
+        }
+    }
+
+    @Benchmark
+    public Optional<TenantMapper> getTenantMapper(Cursor cursor) {
+        String tenantId = tenantIds[accessOrder[cursor.next()]];
+        return service.get(BenchmarkFixtures.TENANT_MAPPER_GROUP, tenantId, TenantMapper.class);
+    }
+
+    @Benchmark
+    public Optional<TenantEventSetting> getEventSetting(Cursor cursor) {
+        String tenantId = tenantIds[accessOrder[cursor.next()]];
+        return service.get(BenchmarkFixtures.EVENT_SETTING_GROUP, tenantId, TenantEventSetting.class);
+    }
+
+    @Benchmark
+    public TenantEventSetting getEventSettingFromRegion(Cursor cursor) {
+        String tenantId = tenantIds[accessOrder[cursor.next()]];
+        return eventSettingRegion.getOrNull(tenantId);
+    }
+
+    @Benchmark
+    public void putTenantMapper(Cursor cursor) {
+        int index = accessOrder[cursor.next()] % keyCount;
+        service.put(BenchmarkFixtures.TENANT_MAPPER_GROUP, tenantIds[index], tenantMappers[index]);
+    }
+}
@@ -0,0 +1,139 @@
+package com.biswamit.cache.benchmark;
+
+import com.biswamit.cache.config.CacheTtlProperties;
+import com.biswamit.cache.config.PerKeyExpiryPolicy;
+import com.biswamit.cache.config.TtlRuleIndex;
+import com.biswamit.cache.key.CacheGroupRegistry;
+import com.biswamit.cache.key.CacheKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of TTL resolution in {@link PerKeyExpiryPolicy} for each level of the hierarchy,
+ * and of building and probing {@link CacheKey}s. {@code globRules} adds that many tenant glob
+ * rules, which should leave the resolution cost unchanged. {@code readAdaptive} is the read path
+ * of a group with adaptive TTLs with every thread reading the same hot key, and
+ * {@code readAdaptiveSpread} with reads spread over many keys, none of them frequent enough to
+ * saturate its counters in the frequency sketch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExpiryPolicyBenchmark {
+
+    private static final String OTHER_TENANT_ID = "a1b2c3d4-e5f6-4a7b-8c9d-0e1f2a3b4c5d";
+    private static final int SPREAD_KEYS = 1 << 20;
+
+    private PerKeyExpiryPolicy policy;
+    private CacheGroupRegistry groupRegistry;
+    private CacheKey specificKey;
+    private CacheKey groupKey;
+    private CacheKey defaultKey;
+    private CacheKey globKey;
+    private CacheKey adaptiveKey;
+    private CacheKey[] adaptiveKeys;
+
+    @Param({"0", "5000"})
+    public int globRules;
+
+    @Setup
+    public void setUp() {
+        policy = new PerKeyExpiryPolicy();
+        CacheTtlProperties properties = BenchmarkFixtures.ttlProperties();
+        properties.getKeys().put("matrix.*", Duration.ofMinutes(20));
+        CacheTtlProperties.GroupExpiry adaptive = new CacheTtlProperties.GroupExpiry();
+        adaptive.setAdaptiveMinTtl(Duration.ofMinutes(1));
+        adaptive.setAdaptiveMaxTtl(Duration.ofHours(1));
+        properties.getExpiry().put(BenchmarkFixtures.EVENT_SETTING_GROUP, adaptive);
+        for (int i = 0; i < globRules; i++) {
+            properties.getKeys().put(BenchmarkFixtures.TENANT_MAPPER_GROUP + ".tenant-" + i + "-*", Duration.ofSeconds(i + 1));
+        }
+        groupRegistry = new CacheGroupRegistry(TtlRuleIndex.compile(properties));
+        specificKey = groupRegistry.key(BenchmarkFixtures.TENANT_MAPPER_GROUP, BenchmarkFixtures.SPECIFIC_TENANT_ID);
+        groupKey = groupRegistry.key(BenchmarkFixtures.TENANT_MAPPER_GROUP, OTHER_TENANT_ID);
+        defaultKey = groupRegistry.key("unconfigured.group", "some.key");
+        globKey = groupRegistry.key(BenchmarkFixtures.TENANT_MAPPER_GROUP, "tenant-" + globRules / 2 + "-eu");
+        adaptiveKey = groupRegistry.key(BenchmarkFixtures.EVENT_SETTING_GROUP, OTHER_TENANT_ID);
+        String[] tenantIds = BenchmarkFixtures.tenantIds(SPREAD_KEYS, 42);
+        adaptiveKeys = new CacheKey[SPREAD_KEYS];
+        for (int i = 0; i < SPREAD_KEYS; i++) {
+            adaptiveKeys[i] = groupRegistry.key(BenchmarkFixtures.EVENT_SETTING_GROUP, tenantIds[i]);
+        }
+    }
+
+    @Benchmark
+    public long resolveSpecific() {
+        return policy.resolveNanos(specificKey);
+    }
+
+    @Benchmark
+    public long resolveGroup() {
+        return policy.resolveNanos(groupKey);
+    }
+
+    @Benchmark
+    public long resolveDefault() {
+        return policy.resolveNanos(defaultKey);
+    }
+
+    @Benchmark
+    public long resolveGlob() {
+        return policy.resolveNanos(globKey);
+    }
+
+    @Benchmark
+    public long readAdaptive() {
+        return policy.expireAfterRead(adaptiveKey, adaptiveKey, 0, 1);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next = ThreadLocalRandom.current().nextInt();
+
+        int next() {
+            return next++ & (SPREAD_KEYS - 1);
+        }
+    }
+
+    @Benchmark
+    public long readAdaptiveSpread(Cursor cursor) {
+        CacheKey key = adaptiveKeys[cursor.next()];
+        return policy.expireAfterRead(key, key, 0, 1);
+    }
+
+    @Benchmark
+    public Duration resolveDuration() {
+        return policy.resolveDuration(groupKey);
+    }
+
+    @Benchmark
+    public CacheKey createUuidKey() {
+        return groupRegistry.key(BenchmarkFixtures.TENANT_MAPPER_GROUP, OTHER_TENANT_ID);
+    }
+
+    @Benchmark
+    public CacheKey createStringKey() {
+        return groupRegistry.key(BenchmarkFixtures.TRACING_GROUP, "matrix.otel");
+    }
+
+    @Benchmark
+    public CacheKey lookupUuidKey() {
+        return groupRegistry.lookupKey(BenchmarkFixtures.TENANT_MAPPER_GROUP, OTHER_TENANT_ID);
+    }
+}
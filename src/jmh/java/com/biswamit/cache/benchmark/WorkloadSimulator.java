@@ -0,0 +1,390 @@
+package com.biswamit.cache.benchmark;
+
+import com.biswamit.cache.FakeTicker;
+import com.biswamit.cache.bus.InvalidationBus;
+import com.biswamit.cache.config.CacheSegments;
+import com.biswamit.cache.config.CacheTtlProperties;
+import com.biswamit.cache.config.TtlRuleIndex;
+import com.biswamit.cache.config.ValueCanonicalizer;
+import com.biswamit.cache.config.ValueWeigher;
+import com.biswamit.cache.event.RemovalEvents;
+import com.biswamit.cache.key.CacheGroup;
+import com.biswamit.cache.key.CacheGroupRegistry;
+import com.biswamit.cache.key.CacheKey;
+import com.biswamit.cache.key.GroupKeyIndex;
+import com.biswamit.cache.service.LoadCoalescer;
+import com.biswamit.cache.service.TimeExpiringCacheService;
+import com.biswamit.cache.stats.CacheStatistics;
+import com.biswamit.cache.stats.GroupStatsSnapshot;
+import com.biswamit.cache.stats.LatencyHistogram;
+import com.biswamit.cache.tier.OffHeapTier;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Replays a synthetic multi-tenant workload against {@link TimeExpiringCacheService} to size
+ * groups and TTLs before they are changed in production.
+ *
+ * Tenants are drawn from a Zipfian distribution, so a few tenants take most of the traffic. At
+ * regular intervals a burst moves part of the traffic onto a block of otherwise cold tenants, as a
+ * batch job or a reconnect storm would. Several threads read through the registered loaders and
+ * write at the configured ratio, while the cache reads time from a {@link FakeTicker}: the threads
+ * meet after every step, the clock moves on by one step and expired entries are cleaned up, so
+ * hours of TTL churn take seconds.
+ *
+ * Every thread has its own seeded random source and the clock only moves between steps, so two
+ * runs with the same arguments replay the same traffic on the same timeline. The report is printed
+ * and written to {@code target/soak-<name>.json} for comparison across runs.
+ *
+ * Usage: {@code WorkloadSimulator [key=value ...]}, e.g. {@code tenants=100000 hours=6 threads=8}.
+ * See {@link Workload} for the keys and their defaults.
+ */
+public final class WorkloadSimulator {
+
+    private static final String[] GROUPS = {
+            BenchmarkFixtures.TENANT_MAPPER_GROUP, BenchmarkFixtures.EVENT_SETTING_GROUP, BenchmarkFixtures.TRACING_GROUP};
+    private static final double[] GROUP_WEIGHTS = {0.5, 0.4, 0.1};
+
+    private WorkloadSimulator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Workload workload = Workload.parse(args);
+        Report report = run(workload);
+        report.print(System.out);
+        Path file = Path.of("target", "soak-" + workload.name() + ".json");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, report.toJson());
+        System.out.println("Report written to " + file);
+    }
+
+    /**
+     * The parameters of a run.
+     *
+     * @param name Names the report file.
+     * @param tenants The number of distinct tenants.
+     * @param threads The number of threads driving the cache.
+     * @param simulated The simulated time to cover ({@code hours}).
+     * @param step The simulated time between two clock advances ({@code step-seconds}).
+     * @param opsPerStep The operations of each thread per step ({@code ops-per-step}).
+     * @param zipfExponent The skew of the tenant popularity; 0 is uniform ({@code zipf}).
+     * @param writeRatio The share of operations that are puts ({@code writes}).
+     * @param burstEvery The simulated time between the starts of two bursts ({@code burst-every-minutes}).
+     * @param burstLength The simulated length of a burst ({@code burst-minutes}).
+     * @param burstTenants The number of cold tenants a burst targets ({@code burst-tenants}).
+     * @param burstShare The share of operations that go to the burst tenants during a burst ({@code burst-share}).
+     * @param seed Seeds the random sources of the threads.
+     * @param canonicalize Whether stored values share equal components, see {@link ValueCanonicalizer}.
+     * @param adaptive Whether every group adapts its TTLs to key frequencies, between a quarter and
+     *                 four times its configured TTL.
+     */
+    record Workload(String name, int tenants, int threads, Duration simulated, Duration step, int opsPerStep,
+                    double zipfExponent, double writeRatio, Duration burstEvery, Duration burstLength,
+                    int burstTenants, double burstShare, long seed, boolean canonicalize,
+                    boolean adaptive) {
+
+        static Workload parse(String[] args) {
+            Map<String, String> values = new LinkedHashMap<>();
+            for (String arg : args) {
+                // Maven passes all arguments as a single one
+                for (String pair : arg.trim().split("\\s+")) {
+                    int separator = pair.indexOf('=');
+                    if (separator <= 0) {
+                        throw new IllegalArgumentException("Expected key=value, got '" + pair + "'");
+                    }
+                    values.put(pair.substring(0, separator), pair.substring(separator + 1));
+                }
+            }
+            Workload workload = new Workload(
+                    values.getOrDefault("name", "default"),
+                    Integer.parseInt(values.getOrDefault("tenants", "10000")),
+                    Integer.parseInt(values.getOrDefault("threads", "4")),
+                    Duration.ofMinutes((long) (Double.parseDouble(values.getOrDefault("hours", "6")) * 60)),
+                    Duration.ofSeconds(Long.parseLong(values.getOrDefault("step-seconds", "10"))),
+                    Integer.parseInt(values.getOrDefault("ops-per-step", "200")),
+                    Double.parseDouble(values.getOrDefault("zipf", "1.0")),
+                    Double.parseDouble(values.getOrDefault("writes", "0.05")),
+                    Duration.ofMinutes(Long.parseLong(values.getOrDefault("burst-every-minutes", "60"))),
+                    Duration.ofMinutes(Long.parseLong(values.getOrDefault("burst-minutes", "5"))),
+                    Integer.parseInt(values.getOrDefault("burst-tenants", "500")),
+                    Double.parseDouble(values.getOrDefault("burst-share", "0.5")),
+                    Long.parseLong(values.getOrDefault("seed", "42")),
+                    Boolean.parseBoolean(values.getOrDefault("canonicalize", "false")),
+                    Boolean.parseBoolean(values.getOrDefault("adaptive", "false")));
+            if (workload.tenants() < 1 || workload.threads() < 1 || workload.step().isZero()
+                    || workload.burstEvery().isZero()) {
+                throw new IllegalArgumentException(
+                        "tenants, threads, step-seconds and burst-every-minutes must be positive: " + workload);
+            }
+            return workload;
+        }
+
+        long steps() {
+            return simulated.toNanos() / step.toNanos();
+        }
+
+        boolean inBurst(long stepIndex) {
+            return burstShare > 0 && (stepIndex * step.toNanos()) % burstEvery.toNanos() < burstLength.toNanos();
+        }
+
+        /**
+         * @return the first tenant of the block targeted by the burst that covers the step.
+         */
+        int burstStart(long stepIndex) {
+            long burst = stepIndex * step.toNanos() / burstEvery.toNanos();
+            // Walks through the tenants in strides, mostly landing on the cold Zipfian tail
+            return (int) ((burst * 7919L * burstTenants + tenants / 2) % tenants);
+        }
+    }
+
+    static Report run(Workload workload) throws Exception {
+        FakeTicker ticker = new FakeTicker();
+        CacheTtlProperties properties = BenchmarkFixtures.ttlProperties();
+        if (workload.adaptive()) {
+            for (String group : GROUPS) {
+                Duration ttl = properties.getKeys().get(group);
+                CacheTtlProperties.GroupExpiry expiry = new CacheTtlProperties.GroupExpiry();
+                expiry.setAdaptiveMinTtl(ttl.dividedBy(4));
+                expiry.setAdaptiveMaxTtl(ttl.multipliedBy(4));
+                expiry.setAdaptiveKeys(workload.tenants());
+                properties.getExpiry().put(group, expiry);
+            }
+        }
+        CacheGroupRegistry groupRegistry = new CacheGroupRegistry(TtlRuleIndex.compile(properties));
+        GroupKeyIndex groupKeyIndex = new GroupKeyIndex();
+        CacheStatistics statistics = new CacheStatistics(groupKeyIndex);
+        Cache<CacheKey, Object> cache = BenchmarkFixtures.cache(groupKeyIndex, statistics, ticker);
+        CacheSegments segments = new CacheSegments(cache);
+        TimeExpiringCacheService service = new TimeExpiringCacheService(segments, groupRegistry, groupKeyIndex,
+                statistics, OffHeapTier.disabled(), InvalidationBus.disabled(), ForkJoinPool.commonPool(),
+                LoadCoalescer.disabled(), new RemovalEvents(), workload.canonicalize()
+                        ? new ValueCanonicalizer(Set.of(GROUPS), statistics) : ValueCanonicalizer.disabled());
+
+        String[] tenantIds = BenchmarkFixtures.tenantIds(workload.tenants(), workload.seed());
+        Map<String, Integer> tenantIndexes = new HashMap<>();
+        for (int i = 0; i < tenantIds.length; i++) {
+            tenantIndexes.put(tenantIds[i], i);
+        }
+        service.registerLoader(BenchmarkFixtures.TENANT_MAPPER_GROUP,
+                tenantId -> BenchmarkFixtures.tenantMapper(tenantId, tenantIndexes.get(tenantId)));
+        service.registerLoader(BenchmarkFixtures.EVENT_SETTING_GROUP,
+                tenantId -> BenchmarkFixtures.tenantEventSetting(tenantIndexes.get(tenantId)));
+        service.registerLoader(BenchmarkFixtures.TRACING_GROUP, tenantId -> tenantIndexes.get(tenantId) % 3 == 0);
+
+        CacheGroup[] groups = Arrays.stream(GROUPS).map(groupRegistry::group).toArray(CacheGroup[]::new);
+        LatencyHistogram[] latencies = new LatencyHistogram[groups.length];
+        Arrays.setAll(latencies, i -> new LatencyHistogram());
+        long[] peakBytes = new long[groups.length];
+        double[] zipfCdf = zipfCdf(workload.tenants(), workload.zipfExponent());
+
+        long stepsPerHour = Math.max(1, Duration.ofHours(1).toNanos() / workload.step().toNanos());
+        long[] stepIndex = new long[1];
+        CyclicBarrier barrier = new CyclicBarrier(workload.threads(), () -> {
+            stepIndex[0]++;
+            ticker.advance(workload.step());
+            cache.cleanUp();
+            if (stepIndex[0] % stepsPerHour == 0) {
+                for (int g = 0; g < groups.length; g++) {
+                    peakBytes[g] = Math.max(peakBytes[g], retainedBytes(cache, groupKeyIndex, groups[g]));
+                }
+            }
+        });
+
+        ExecutorService drivers = Executors.newFixedThreadPool(workload.threads());
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < workload.threads(); t++) {
+                SplittableRandom random = new SplittableRandom(workload.seed() * 31 + t);
+                results.add(drivers.submit(() -> {
+                    drive(workload, service, tenantIds, zipfCdf, latencies, barrier, stepIndex, random);
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            drivers.shutdownNow();
+        }
+        long wallNanos = System.nanoTime() - start;
+
+        List<GroupReport> groupReports = new ArrayList<>();
+        for (int g = 0; g < groups.length; g++) {
+            long bytes = retainedBytes(cache, groupKeyIndex, groups[g]);
+            groupReports.add(new GroupReport(statistics.snapshot(groups[g]), latencies[g].counts(), bytes,
+                    Math.max(peakBytes[g], bytes)));
+        }
+        return new Report(workload, wallNanos, groupReports);
+    }
+
+    private static void drive(Workload workload, TimeExpiringCacheService service, String[] tenantIds,
+                              double[] zipfCdf, LatencyHistogram[] latencies, CyclicBarrier barrier, long[] stepIndex,
+                              SplittableRandom random) throws InterruptedException, BrokenBarrierException {
+        for (long step = 0; step < workload.steps(); step++) {
+            // Read once per step; the barrier action only changes it while every driver waits
+            long currentStep = stepIndex[0];
+            boolean burst = workload.inBurst(currentStep);
+            int burstStart = workload.burstStart(currentStep);
+            for (int op = 0; op < workload.opsPerStep(); op++) {
+                int tenant = burst && random.nextDouble() < workload.burstShare()
+                        ? (burstStart + random.nextInt(Math.min(workload.burstTenants(), tenantIds.length))) % tenantIds.length
+                        : sample(zipfCdf, random.nextDouble());
+                int group = pickGroup(random.nextDouble());
+                String tenantId = tenantIds[tenant];
+                boolean write = random.nextDouble() < workload.writeRatio();
+                long start = System.nanoTime();
+                if (write) {
+                    service.put(GROUPS[group], tenantId, value(group, tenantId, tenant));
+                } else {
+                    service.get(GROUPS[group], tenantId, Object.class);
+                }
+                latencies[group].record(System.nanoTime() - start);
+            }
+            barrier.await();
+        }
+    }
+
+    private static Object value(int group, String tenantId, int tenant) {
+        return switch (group) {
+            case 0 -> BenchmarkFixtures.tenantMapper(tenantId, tenant);
+            case 1 -> BenchmarkFixtures.tenantEventSetting(tenant);
+            default -> tenant % 3 == 0;
+        };
+    }
+
+    private static int pickGroup(double uniform) {
+        double cumulative = 0;
+        for (int g = 0; g < GROUP_WEIGHTS.length - 1; g++) {
+            cumulative += GROUP_WEIGHTS[g];
+            if (uniform < cumulative) {
+                return g;
+            }
+        }
+        return GROUP_WEIGHTS.length - 1;
+    }
+
+    /**
+     * @return the cumulative probabilities of the tenants by rank, with P(rank k) proportional to 1 / k^exponent.
+     */
+    static double[] zipfCdf(int tenants, double exponent) {
+        double[] cdf = new double[tenants];
+        double sum = 0;
+        for (int k = 0; k < tenants; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < tenants; k++) {
+            cdf[k] /= sum;
+        }
+        return cdf;
+    }
+
+    static int sample(double[] cdf, double uniform) {
+        int index = Arrays.binarySearch(cdf, uniform);
+        return Math.min(index >= 0 ? index : -index - 1, cdf.length - 1);
+    }
+
+    /**
+     * Estimates the heap held by the entries of a group with the same model as the weight bounds.
+     */
+    private static long retainedBytes(Cache<CacheKey, Object> cache, GroupKeyIndex groupKeyIndex, CacheGroup group) {
+        ValueWeigher weigher = new ValueWeigher();
+        long bytes = 0;
+        for (CacheKey key : groupKeyIndex.keys(group)) {
+            Object value = cache.asMap().get(key);
+            if (value != null) {
+                bytes += weigher.weigh(key, value);
+            }
+        }
+        return bytes;
+    }
+
+    record GroupReport(GroupStatsSnapshot stats, long[] latencyCounts, long retainedBytes, long peakRetainedBytes) {
+
+        long operations() {
+            return Arrays.stream(latencyCounts).sum();
+        }
+
+        double hitRatio() {
+            long lookups = stats.hitCount() + stats.missCount();
+            return lookups == 0 ? 0 : (double) stats.hitCount() / lookups;
+        }
+
+        long percentileNanos(double percentile) {
+            return LatencyHistogram.percentile(latencyCounts, percentile);
+        }
+    }
+
+    record Report(Workload workload, long wallNanos, List<GroupReport> groups) {
+
+        long operations() {
+            return groups.stream().mapToLong(GroupReport::operations).sum();
+        }
+
+        double throughput() {
+            return operations() / (wallNanos / 1e9);
+        }
+
+        void print(PrintStream out) {
+            out.printf(Locale.ROOT, "%s: %d tenants, %d threads, %s simulated in %.1fs, %.0f ops/s%n",
+                    workload.name(), workload.tenants(), workload.threads(), workload.simulated(), wallNanos / 1e9,
+                    throughput());
+            out.printf(Locale.ROOT, "%-24s %10s %8s %10s %10s %10s %10s %10s %8s %12s %12s %12s%n", "group", "ops", "hit%",
+                    "p50(ns)", "p99(ns)", "p99.9(ns)", "loads", "expired", "entries", "heap(B)", "peak heap(B)",
+                    "saved(B)");
+            for (GroupReport group : groups) {
+                GroupStatsSnapshot stats = group.stats();
+                out.printf(Locale.ROOT, "%-24s %10d %8.2f %10d %10d %10d %10d %10d %8d %12d %12d %12d%n", stats.group(),
+                        group.operations(), group.hitRatio() * 100, group.percentileNanos(50),
+                        group.percentileNanos(99), group.percentileNanos(99.9), stats.loadSuccessCount(),
+                        stats.removalCount(RemovalCause.EXPIRED), stats.entryCount(), group.retainedBytes(),
+                        group.peakRetainedBytes(), stats.canonicalSavedBytes());
+            }
+        }
+
+        String toJson() {
+            StringBuilder json = new StringBuilder();
+            json.append(String.format(Locale.ROOT, "{\"workload\":\"%s\",\"tenants\":%d,\"threads\":%d,"
+                            + "\"simulatedSeconds\":%d,\"zipf\":%s,\"writes\":%s,\"burstShare\":%s,\"seed\":%d,\"canonicalize\":%s,\"adaptive\":%s,"
+                            + "\"wallSeconds\":%.3f,\"opsPerSecond\":%.1f,\"groups\":[",
+                    workload.name(), workload.tenants(), workload.threads(), workload.simulated().toSeconds(),
+                    workload.zipfExponent(), workload.writeRatio(), workload.burstShare(), workload.seed(), workload.canonicalize(),
+                    workload.adaptive(),
+                    wallNanos / 1e9, throughput()));
+            for (int i = 0; i < groups.size(); i++) {
+                GroupReport group = groups.get(i);
+                GroupStatsSnapshot stats = group.stats();
+                json.append(i == 0 ? "" : ",").append(String.format(Locale.ROOT,
+                        "{\"group\":\"%s\",\"operations\":%d,\"hitRatio\":%.4f,\"p50Nanos\":%d,\"p99Nanos\":%d,"
+                                + "\"p999Nanos\":%d,\"loads\":%d,\"expired\":%d,\"entries\":%d,\"retainedBytes\":%d,"
+                                + "\"peakRetainedBytes\":%d,\"canonicalSavedBytes\":%d}",
+                        stats.group(), group.operations(), group.hitRatio(), group.percentileNanos(50),
+                        group.percentileNanos(99), group.percentileNanos(99.9), stats.loadSuccessCount(),
+                        stats.removalCount(RemovalCause.EXPIRED), stats.entryCount(), group.retainedBytes(),
+                        group.peakRetainedBytes(), stats.canonicalSavedBytes()));
+            }
+            return json.append("]}\n").toString();
+        }
+    }
+}
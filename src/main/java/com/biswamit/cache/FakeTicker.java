@@ -2,21 +2,23 @@ package com.biswamit.cache;
 
 import com.github.benmanes.caffeine.cache.Ticker;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.time.Duration;
 
 public class FakeTicker implements Ticker {
-    private long nanos = System.nanoTime();
+    // Atomic so that a clock advanced by one thread is seen by every thread reading the cache
+    private final AtomicLong nanos = new AtomicLong(System.nanoTime());
 
     @Override
     public long read() {
-        return this.nanos;
+        return this.nanos.get();
     }
 
     public void advance(long time, TimeUnit timeUnit) {
-        this.nanos += timeUnit.toNanos(time);
+        this.nanos.addAndGet(timeUnit.toNanos(time));
     }
 
     public void advance(Duration duration) {
-        this.nanos += duration.toNanos();
+        this.nanos.addAndGet(duration.toNanos());
     }
 }
@@ -0,0 +1,221 @@
+package com.biswamit.cache.bus;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Publishes local cache changes to the other nodes of a cluster and hands the changes received
+ * from them to a listener.
+ *
+ * Published events are not sent one by one. They are collected and flushed every
+ * {@code flushInterval}, or as soon as {@code maxBatchSize} distinct events are pending. Within a
+ * batch, repeated events for the same key collapse into one, and a group invalidation absorbs
+ * every key event of that group, so a burst of writes to a few hot keys costs a single small
+ * batch. Batches larger than the transport's payload limit are split.
+ *
+ * Each batch carries the id of the sending node, so batches looped back by the transport are ignored.
+ */
+public class InvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvalidationBus.class);
+
+    private static final int MAGIC = 0x43494E56; // "CINV"
+
+    private final InvalidationTransport transport;
+    private final Duration flushInterval;
+    private final int maxBatchSize;
+    private final UUID nodeId = UUID.randomUUID();
+    private Set<InvalidationEvent> pending = new LinkedHashSet<>();
+    private volatile Consumer<InvalidationEvent> listener;
+    private ScheduledExecutorService flusher;
+
+    /**
+     * @param transport Carries the batches, or {@code null} to disable the bus.
+     * @param flushInterval The longest time an event waits before it is sent.
+     * @param maxBatchSize The number of pending events that triggers an early flush.
+     */
+    public InvalidationBus(InvalidationTransport transport, Duration flushInterval, int maxBatchSize) {
+        this.transport = transport;
+        this.flushInterval = flushInterval;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @return a bus that publishes nothing and never receives events.
+     */
+    public static InvalidationBus disabled() {
+        return new InvalidationBus(null, null, 0);
+    }
+
+    public boolean isEnabled() {
+        return transport != null;
+    }
+
+    /**
+     * Binds the bus to the cache it keeps consistent.
+     *
+     * @param listener Applies the events received from other nodes, without publishing them again.
+     */
+    public void attach(Consumer<InvalidationEvent> listener) {
+        this.listener = listener;
+    }
+
+    public void start() throws IOException {
+        if (transport == null) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-invalidation-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalNanos = flushInterval.toNanos();
+        flusher.scheduleWithFixedDelay(this::flush, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+        transport.subscribe(this::receive);
+        logger.info("Publishing cache invalidations as node {}", nodeId);
+    }
+
+    public void stop() throws IOException {
+        if (transport == null) {
+            return;
+        }
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        flush();
+        transport.close();
+    }
+
+    /**
+     * Queues an event for the other nodes.
+     */
+    public void publish(InvalidationEvent event) {
+        if (transport == null) {
+            return;
+        }
+        int size;
+        synchronized (this) {
+            pending.add(event);
+            size = pending.size();
+        }
+        if (size == maxBatchSize && flusher != null && !flusher.isShutdown()) {
+            flusher.execute(this::flush);
+        }
+    }
+
+    /**
+     * Sends the pending events now.
+     */
+    public void flush() {
+        Set<InvalidationEvent> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashSet<>();
+        }
+        try {
+            for (byte[] payload : encode(coalesce(batch))) {
+                transport.send(payload);
+            }
+        } catch (IOException | RuntimeException e) {
+            // The other nodes fall back to the TTL for the entries of this batch
+            logger.warn("Failed to publish {} cache invalidations", batch.size(), e);
+        }
+    }
+
+    private static List<InvalidationEvent> coalesce(Set<InvalidationEvent> batch) {
+        Set<String> invalidatedGroups = new HashSet<>();
+        for (InvalidationEvent event : batch) {
+            if (event.type() == InvalidationEvent.Type.GROUP) {
+                invalidatedGroups.add(event.group());
+            }
+        }
+        List<InvalidationEvent> events = new ArrayList<>(batch.size());
+        for (InvalidationEvent event : batch) {
+            if (event.type() == InvalidationEvent.Type.GROUP || !invalidatedGroups.contains(event.group())) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    private List<byte[]> encode(List<InvalidationEvent> events) throws IOException {
+        List<byte[]> payloads = new ArrayList<>();
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        DataOutputStream recordOut = new DataOutputStream(record);
+        int headerSize = Integer.BYTES + 2 * Long.BYTES;
+        int limit = transport.maxPayloadSize();
+        for (InvalidationEvent event : events) {
+            record.reset();
+            recordOut.writeByte(event.type().ordinal());
+            recordOut.writeUTF(event.group());
+            recordOut.writeBoolean(event.subKey() != null);
+            if (event.subKey() != null) {
+                recordOut.writeUTF(event.subKey());
+            }
+            if (headerSize + record.size() > limit) {
+                logger.warn("Dropping cache invalidation {} that does not fit into one batch", event);
+                continue;
+            }
+            if (payload.size() > 0 && payload.size() + record.size() > limit) {
+                payloads.add(payload.toByteArray());
+                payload.reset();
+            }
+            if (payload.size() == 0) {
+                DataOutputStream header = new DataOutputStream(payload);
+                header.writeInt(MAGIC);
+                header.writeLong(nodeId.getMostSignificantBits());
+                header.writeLong(nodeId.getLeastSignificantBits());
+            }
+            record.writeTo(payload);
+        }
+        if (payload.size() > 0) {
+            payloads.add(payload.toByteArray());
+        }
+        return payloads;
+    }
+
+    private void receive(byte[] payload) {
+        Consumer<InvalidationEvent> target = listener;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            if (in.readInt() != MAGIC) {
+                return;
+            }
+            long senderMost = in.readLong();
+            long senderLeast = in.readLong();
+            if (senderMost == nodeId.getMostSignificantBits() && senderLeast == nodeId.getLeastSignificantBits()) {
+                return;
+            }
+            while (in.available() > 0) {
+                InvalidationEvent.Type type = InvalidationEvent.Type.values()[in.readByte()];
+                String group = in.readUTF();
+                String subKey = in.readBoolean() ? in.readUTF() : null;
+                if (target != null) {
+                    target.accept(new InvalidationEvent(type, group, subKey));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to apply a batch of cache invalidations", e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.biswamit.cache.bus;
+
+/**
+ * A change to the cache that other nodes must apply to their own copies.
+ *
+ * @param type Whether a single key or a whole group changed.
+ * @param group The group name.
+ * @param subKey The sub-key of a {@link Type#KEY} event; {@code null} for a group-only entry or a {@link Type#GROUP} event.
+ */
+public record InvalidationEvent(Type type, String group, String subKey) {
+
+    public enum Type {
+        /** A single entry was written or invalidated. */
+        KEY,
+        /** Every entry of the group was invalidated. */
+        GROUP
+    }
+
+    public static InvalidationEvent key(String group, String subKey) {
+        return new InvalidationEvent(Type.KEY, group, subKey);
+    }
+
+    public static InvalidationEvent group(String group) {
+        return new InvalidationEvent(Type.GROUP, group, null);
+    }
+}
@@ -0,0 +1,27 @@
+package com.biswamit.cache.bus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Carries encoded batches of {@link InvalidationEvent}s between the nodes of a cluster.
+ * A transport may deliver a node's own batches back to it; the {@link InvalidationBus} drops them.
+ */
+public interface InvalidationTransport extends Closeable {
+
+    /**
+     * Sends a batch to every node, best effort.
+     */
+    void send(byte[] payload) throws IOException;
+
+    /**
+     * Starts delivering the batches received from other nodes to the given receiver.
+     */
+    void subscribe(Consumer<byte[]> receiver) throws IOException;
+
+    /**
+     * @return the largest payload a single {@link #send(byte[])} can carry.
+     */
+    int maxPayloadSize();
+}
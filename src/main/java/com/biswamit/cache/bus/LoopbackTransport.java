@@ -0,0 +1,59 @@
+package com.biswamit.cache.bus;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * An in-process transport: every transport joined to the same {@link Hub} receives the batches
+ * sent by the others, on the sending thread. Used for single-node deployments and tests.
+ */
+public class LoopbackTransport implements InvalidationTransport {
+
+    private final Hub hub;
+    private Consumer<byte[]> receiver;
+
+    /**
+     * Creates a transport on its own hub, which only ever delivers to itself.
+     */
+    public LoopbackTransport() {
+        this(new Hub());
+    }
+
+    public LoopbackTransport(Hub hub) {
+        this.hub = hub;
+    }
+
+    @Override
+    public void send(byte[] payload) {
+        for (LoopbackTransport transport : hub.transports) {
+            Consumer<byte[]> target = transport.receiver;
+            if (target != null) {
+                target.accept(payload);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<byte[]> receiver) {
+        this.receiver = receiver;
+        hub.transports.add(this);
+    }
+
+    @Override
+    public int maxPayloadSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void close() {
+        hub.transports.remove(this);
+    }
+
+    /**
+     * The shared medium of a group of loopback transports.
+     */
+    public static final class Hub {
+        private final List<LoopbackTransport> transports = new CopyOnWriteArrayList<>();
+    }
+}
@@ -0,0 +1,117 @@
+package com.biswamit.cache.bus;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A UDP multicast transport. Every node joins the same multicast group and port; batches are
+ * sent as single datagrams, so delivery is best effort and a lost batch leaves the affected
+ * entries to expire by TTL.
+ *
+ * With {@code timeToLive} 0 datagrams never leave the host, which allows running several nodes
+ * on one machine, e.g. on the loopback interface.
+ */
+public class MulticastTransport implements InvalidationTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(MulticastTransport.class);
+
+    /** Keeps a datagram within a typical Ethernet MTU so it is not fragmented. */
+    private static final int MAX_PAYLOAD_SIZE = 1400;
+
+    /** The delay before receiving again after a failure, doubling while failures repeat. */
+    private static final long MIN_BACKOFF_MILLIS = 10;
+    private static final long MAX_BACKOFF_MILLIS = 1000;
+
+    private final InetSocketAddress group;
+    private final NetworkInterface networkInterface;
+    private final MulticastSocket socket;
+    private Thread receiverThread;
+
+    /**
+     * @param group The multicast group address and port shared by all nodes.
+     * @param networkInterface The interface to join the group on, or {@code null} for the default.
+     * @param timeToLive The multicast hop limit; 0 keeps datagrams on this host.
+     */
+    public MulticastTransport(InetSocketAddress group, NetworkInterface networkInterface, int timeToLive)
+            throws IOException {
+        if (!group.getAddress().isMulticastAddress()) {
+            throw new IllegalArgumentException(group.getAddress() + " is not a multicast address");
+        }
+        this.group = group;
+        this.networkInterface = networkInterface;
+        this.socket = new MulticastSocket(group.getPort());
+        socket.setTimeToLive(timeToLive);
+        if (networkInterface != null) {
+            socket.setNetworkInterface(networkInterface);
+        }
+    }
+
+    @Override
+    public void send(byte[] payload) throws IOException {
+        socket.send(new DatagramPacket(payload, payload.length, group));
+    }
+
+    @Override
+    public void subscribe(Consumer<byte[]> receiver) throws IOException {
+        socket.joinGroup(group, networkInterface);
+        receiverThread = new Thread(() -> receive(receiver), "cache-invalidation-receiver");
+        receiverThread.setDaemon(true);
+        receiverThread.start();
+    }
+
+    @Override
+    public int maxPayloadSize() {
+        return MAX_PAYLOAD_SIZE;
+    }
+
+    @Override
+    public void close() {
+        socket.close();
+    }
+
+    private void receive(Consumer<byte[]> receiver) {
+        byte[] buffer = new byte[65_536];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        long backoffMillis = MIN_BACKOFF_MILLIS;
+        while (!socket.isClosed()) {
+            try {
+                packet.setLength(buffer.length);
+                socket.receive(packet);
+                backoffMillis = MIN_BACKOFF_MILLIS;
+                receiver.accept(Arrays.copyOfRange(buffer, packet.getOffset(), packet.getOffset() + packet.getLength()));
+            } catch (IOException | RuntimeException e) {
+                if (socket.isClosed()) {
+                    break;
+                }
+                logger.warn("Failed to receive cache invalidations on {}, retrying in {} ms", group, backoffMillis, e);
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                backoffMillis = Math.min(MAX_BACKOFF_MILLIS, backoffMillis * 2);
+            }
+        }
+        logger.debug("Stopped receiving on {}", group);
+    }
+
+    /**
+     * @return the interface to use for multicast on this host: the loopback
+     * interface if it supports multicast, otherwise {@code null} for the system default.
+     */
+    public static NetworkInterface loopbackInterface() throws SocketException {
+        NetworkInterface loopback = NetworkInterface.getByInetAddress(InetAddress.getLoopbackAddress());
+        return loopback != null && loopback.supportsMulticast() ? loopback : null;
+    }
+}
@@ -1,22 +1,212 @@
 package com.biswamit.cache.config;
+import com.biswamit.cache.bus.InvalidationBus;
+import com.biswamit.cache.bus.InvalidationTransport;
+import com.biswamit.cache.bus.LoopbackTransport;
+import com.biswamit.cache.bus.MulticastTransport;
+import com.biswamit.cache.event.RemovalEvents;
+import com.biswamit.cache.key.CacheGroupRegistry;
+import com.biswamit.cache.key.CacheKey;
+import com.biswamit.cache.key.GroupKeyIndex;
+import com.biswamit.cache.service.LoadCoalescer;
+import com.biswamit.cache.snapshot.CacheSnapshotter;
+import com.biswamit.cache.stats.CacheStatistics;
+import com.biswamit.cache.stats.CacheStatisticsJmx;
+import com.biswamit.cache.tier.ModelSerializers;
+import com.biswamit.cache.tier.OffHeapStore;
+import com.biswamit.cache.tier.OffHeapTier;
+import com.biswamit.cache.tier.SerializerRegistry;
+import com.biswamit.cache.tier.ValueSerializer;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
 /**
- * Spring configuration to set up the Caffeine Cache bean.
- * The cache is configured with a flattened key structure (String) and stores generic Objects.
+ * Spring configuration to set up the Caffeine Cache beans.
+ * The caches are keyed by structured {@link CacheKey}s and store generic Objects. Groups share
+ * one cache unless they have a limit, in which case {@link CacheSegments} gives them their own bounded cache.
+ * Caffeine's own statistics are not recorded: hits, misses, loads and their latency are counted per
+ * group by {@link CacheStatistics}, and nothing reads {@code Cache.stats()}.
+ * The {@link GroupKeyIndex} listens for removals to keep its group-to-keys index consistent, and
+ * {@link CacheStatistics} records them per group; the statistics are exported over JMX.
+ * {@link RemovalEvents} hands them to the subscribers of each group. A scheduler removes expired
+ * entries soon after their deadline, so groups that are no longer read do not hold on to heap.
+ * Size evictions of bounded groups can be demoted to an {@link OffHeapTier}, and the cache contents
+ * can be carried across restarts by the {@link CacheSnapshotter}. Changes are shared with the other
+ * nodes through the {@link InvalidationBus}.
+ * Caffeine's maintenance and listeners, background refreshes and coalesced bulk loads run on the
+ * configured cache load executor, and the {@link LoadCoalescer} gathers misses into bulk loads.
+ * TTL rules can be reloaded at runtime through the {@link TtlConfigReloader}, or from a watched file.
  */
 @Configuration
 @EnableConfigurationProperties(CacheTtlProperties.class)
 public class CacheConfig {
 
     @Bean
-    public Cache<String, Object> timeExpiringCache(CacheTtlProperties ttlProperties) {
+    public CacheGroupRegistry cacheGroupRegistry(CacheTtlProperties ttlProperties) {
+        return new CacheGroupRegistry(TtlRuleIndex.compile(ttlProperties));
+    }
+
+    @Bean
+    public GroupKeyIndex groupKeyIndex() {
+        return new GroupKeyIndex();
+    }
+
+    @Bean
+    public CacheStatistics cacheStatistics(GroupKeyIndex groupKeyIndex) {
+        return new CacheStatistics(groupKeyIndex);
+    }
+
+    @Bean
+    public RemovalEvents removalEvents() {
+        return new RemovalEvents();
+    }
+
+    @Bean(initMethod = "register", destroyMethod = "unregister")
+    public CacheStatisticsJmx cacheStatisticsJmx(CacheStatistics cacheStatistics) {
+        return new CacheStatisticsJmx(cacheStatistics);
+    }
+
+    /**
+     * Shut down through the inferred {@code shutdown} method; a no-op for the common pool.
+     */
+    @Bean
+    public Executor cacheLoadExecutor(CacheTtlProperties ttlProperties) {
+        return LoadExecutors.create(ttlProperties.getLoading());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public LoadCoalescer loadCoalescer(CacheTtlProperties ttlProperties, Executor cacheLoadExecutor) {
+        CacheTtlProperties.Loading loading = ttlProperties.getLoading();
+        return new LoadCoalescer(loading.getCoalesceGroups(), loading.getCoalesceWindow(), loading.getCoalesceMaxKeys(),
+                loading.getCoalesceTimeout(), cacheLoadExecutor);
+    }
+
+    @Bean
+    public ValueCanonicalizer valueCanonicalizer(CacheTtlProperties ttlProperties, CacheStatistics cacheStatistics) {
+        return new ValueCanonicalizer(ttlProperties.getCanonicalize(), cacheStatistics);
+    }
+
+    @Bean
+    public MigratedEntries migratedEntries() {
+        return new MigratedEntries();
+    }
+
+    @Bean
+    public Cache<CacheKey, Object> timeExpiringCache(GroupKeyIndex groupKeyIndex, CacheStatistics cacheStatistics,
+                                                     RemovalEvents removalEvents, MigratedEntries migratedEntries,
+                                                     Executor cacheLoadExecutor) {
+        return newCacheBuilder(groupKeyIndex, cacheStatistics, removalEvents, migratedEntries, cacheLoadExecutor).build();
+    }
+
+    @Bean
+    public CacheSegments cacheSegments(Cache<CacheKey, Object> timeExpiringCache, CacheTtlProperties ttlProperties,
+                                       GroupKeyIndex groupKeyIndex, CacheStatistics cacheStatistics,
+                                       RemovalEvents removalEvents, MigratedEntries migratedEntries,
+                                       OffHeapTier offHeapTier, Executor cacheLoadExecutor) {
+        return new CacheSegments(timeExpiringCache, ttlProperties.getLimits(), limit -> offHeapTier.build(
+                limit.applyTo(newCacheBuilder(groupKeyIndex, cacheStatistics, removalEvents, migratedEntries,
+                        cacheLoadExecutor))), migratedEntries);
+    }
+
+    @Bean
+    public SerializerRegistry valueSerializerRegistry(ObjectProvider<ValueSerializer<?>> valueSerializers) {
+        // Custom serializers come first, so they can take over the default of a type
+        List<ValueSerializer<?>> serializers = new ArrayList<>();
+        valueSerializers.orderedStream().forEach(serializers::add);
+        serializers.addAll(ModelSerializers.defaults());
+        return new SerializerRegistry(serializers);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public OffHeapTier offHeapTier(CacheTtlProperties ttlProperties, SerializerRegistry valueSerializerRegistry) {
+        CacheTtlProperties.OffHeap offHeap = ttlProperties.getOffHeap();
+        if (!offHeap.isEnabled()) {
+            return OffHeapTier.disabled();
+        }
+        OffHeapStore store = new OffHeapStore(offHeap.getCapacity().toBytes(), (int) offHeap.getBlockSize().toBytes(),
+                valueSerializerRegistry, Ticker.systemTicker());
+        Set<String> boundedGroups = ttlProperties.getLimits().entrySet().stream()
+                .filter(limit -> limit.getValue().isBounded())
+                .map(Map.Entry::getKey)
+                .filter(group -> offHeap.getGroups().isEmpty() || offHeap.getGroups().contains(group))
+                .collect(Collectors.toSet());
+        return new OffHeapTier(store, boundedGroups, offHeap.getSweepInterval());
+    }
+
+    @Bean
+    public TtlConfigReloader ttlConfigReloader(CacheGroupRegistry cacheGroupRegistry, CacheSegments cacheSegments,
+                                               GroupKeyIndex groupKeyIndex) {
+        return new TtlConfigReloader(cacheGroupRegistry, cacheSegments, groupKeyIndex);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(prefix = "app.cache.ttl.reload", name = "file")
+    public TtlConfigFileWatcher ttlConfigFileWatcher(TtlConfigReloader ttlConfigReloader, CacheTtlProperties ttlProperties) {
+        return new TtlConfigFileWatcher(ttlConfigReloader, ttlProperties.getReload());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public InvalidationBus invalidationBus(CacheTtlProperties ttlProperties) throws IOException {
+        CacheTtlProperties.Bus bus = ttlProperties.getBus();
+        if (!bus.isEnabled()) {
+            return InvalidationBus.disabled();
+        }
+        InvalidationTransport transport;
+        if (bus.getTransport() == CacheTtlProperties.Bus.Transport.LOOPBACK) {
+            transport = new LoopbackTransport();
+        } else {
+            NetworkInterface networkInterface = bus.getNetworkInterface() != null
+                    ? NetworkInterface.getByName(bus.getNetworkInterface())
+                    : MulticastTransport.loopbackInterface();
+            transport = new MulticastTransport(
+                    new InetSocketAddress(InetAddress.getByName(bus.getMulticastGroup()), bus.getPort()),
+                    networkInterface, bus.getTimeToLive());
+        }
+        return new InvalidationBus(transport, bus.getFlushInterval(), bus.getMaxBatchSize());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(prefix = "app.cache.ttl.snapshot", name = "file")
+    public CacheSnapshotter cacheSnapshotter(CacheSegments cacheSegments, CacheGroupRegistry cacheGroupRegistry,
+                                             GroupKeyIndex groupKeyIndex, SerializerRegistry valueSerializerRegistry,
+                                             ValueCanonicalizer valueCanonicalizer, CacheTtlProperties ttlProperties) {
+        return new CacheSnapshotter(cacheSegments, cacheGroupRegistry, groupKeyIndex, valueSerializerRegistry,
+                valueCanonicalizer, ttlProperties.getSnapshot(), Clock.systemUTC());
+    }
+
+    private static Caffeine<CacheKey, Object> newCacheBuilder(GroupKeyIndex groupKeyIndex, CacheStatistics cacheStatistics,
+                                                              RemovalEvents removalEvents, MigratedEntries migratedEntries,
+                                                              Executor executor) {
         return Caffeine.newBuilder()
-                .expireAfter(new PerKeyExpiryPolicy(ttlProperties))
-                .build();
+                .expireAfter(new PerKeyExpiryPolicy())
+                .executor(executor)
+                .scheduler(Scheduler.systemScheduler())
+                .removalListener((CacheKey key, Object value, RemovalCause cause) -> {
+                    if (migratedEntries.isMove(key, value, cause)) {
+                        return;
+                    }
+                    groupKeyIndex.onRemoval(key, value, cause);
+                    cacheStatistics.onRemoval(key, value, cause);
+                    removalEvents.onRemoval(key, value, cause);
+                });
     }
-}
\ No newline at end of file
+}
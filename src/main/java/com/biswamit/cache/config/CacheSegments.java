@@ -0,0 +1,157 @@
+package com.biswamit.cache.config;
+
+import com.biswamit.cache.key.CacheGroup;
+import com.biswamit.cache.key.CacheKey;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Routes each {@link CacheGroup} to the Caffeine cache that holds its entries.
+ * Groups without a configured {@link CacheTtlProperties.GroupLimit} share one cache; each bounded
+ * group gets its own size- or weight-bounded cache, built lazily on first use, so a flood of
+ * entries in one group only ever evicts entries of that same group.
+ *
+ * A group can also be given its own cache without a limit through {@link #dedicate(CacheGroup, Collection)},
+ * e.g. for a typed region, so that it has its own expiry and eviction structures. The entries moved
+ * over are marked in {@link MigratedEntries}, so their removal from the shared cache is not reported.
+ */
+public class CacheSegments {
+
+    private final Cache<CacheKey, Object> sharedCache;
+    private final Map<String, CacheTtlProperties.GroupLimit> limits;
+    private final Function<CacheTtlProperties.GroupLimit, Cache<CacheKey, Object>> segmentFactory;
+    private final MigratedEntries migratedEntries;
+    private final ConcurrentMap<CacheGroup, Cache<CacheKey, Object>> caches = new ConcurrentHashMap<>();
+    private final ConcurrentMap<CacheGroup, Cache<CacheKey, Object>> segments = new ConcurrentHashMap<>();
+
+    /**
+     * Creates segments where every group shares the given cache.
+     */
+    public CacheSegments(Cache<CacheKey, Object> sharedCache) {
+        this(sharedCache, Map.of(), limit -> sharedCache);
+    }
+
+    /**
+     * @param sharedCache The cache for groups without a limit.
+     * @param limits The limits by group name.
+     * @param segmentFactory Builds the dedicated cache of a bounded group.
+     */
+    public CacheSegments(Cache<CacheKey, Object> sharedCache, Map<String, CacheTtlProperties.GroupLimit> limits,
+                         Function<CacheTtlProperties.GroupLimit, Cache<CacheKey, Object>> segmentFactory) {
+        this(sharedCache, limits, segmentFactory, new MigratedEntries());
+    }
+
+    /**
+     * @param migratedEntries Marks the entries being moved by {@link #dedicate}; the removal
+     *                        listeners of the shared cache must consult it.
+     */
+    public CacheSegments(Cache<CacheKey, Object> sharedCache, Map<String, CacheTtlProperties.GroupLimit> limits,
+                         Function<CacheTtlProperties.GroupLimit, Cache<CacheKey, Object>> segmentFactory,
+                         MigratedEntries migratedEntries) {
+        this.sharedCache = sharedCache;
+        this.limits = Map.copyOf(limits);
+        this.segmentFactory = segmentFactory;
+        this.migratedEntries = migratedEntries;
+    }
+
+    /**
+     * @return the cache holding the entries of the given group.
+     */
+    public Cache<CacheKey, Object> cacheFor(CacheGroup group) {
+        Cache<CacheKey, Object> cache = caches.get(group);
+        return cache != null ? cache : caches.computeIfAbsent(group, this::createFor);
+    }
+
+    /**
+     * Gives a group its own cache, bounded by its limit if it has one. Entries the group already
+     * holds in the shared cache are moved over with their remaining time to live.
+     *
+     * @param groupKeys The keys cached under the group, e.g. from the {@link com.biswamit.cache.key.GroupKeyIndex},
+     *                  so that moving them costs O(entries in the group) rather than a scan of the shared cache.
+     * @return the cache now holding the entries of the group; the shared cache if the segment
+     * factory does not build dedicated caches.
+     */
+    public Cache<CacheKey, Object> dedicate(CacheGroup group, Collection<CacheKey> groupKeys) {
+        Cache<CacheKey, Object> current = caches.get(group);
+        if (current != null && current != sharedCache) {
+            return current;
+        }
+        boolean[] migrate = new boolean[1];
+        Cache<CacheKey, Object> cache = caches.compute(group, (g, existing) -> {
+            if (existing != null && existing != sharedCache) {
+                return existing;
+            }
+            Cache<CacheKey, Object> segment = segmentFactory.apply(
+                    limits.getOrDefault(g.name(), new CacheTtlProperties.GroupLimit()));
+            if (segment != sharedCache) {
+                segments.put(g, segment);
+                migrate[0] = existing == sharedCache;
+            }
+            return segment;
+        });
+        if (migrate[0]) {
+            migrate(groupKeys, cache);
+        }
+        return cache;
+    }
+
+    /**
+     * @return {@code true} if the key currently has an unexpired entry.
+     */
+    public boolean contains(CacheKey key) {
+        return cacheFor(key.group()).asMap().containsKey(key);
+    }
+
+    public Cache<CacheKey, Object> sharedCache() {
+        return sharedCache;
+    }
+
+    /**
+     * @return the dedicated caches of the bounded groups created so far.
+     */
+    public Map<CacheGroup, Cache<CacheKey, Object>> segments() {
+        return Collections.unmodifiableMap(segments);
+    }
+
+    private void migrate(Collection<CacheKey> groupKeys, Cache<CacheKey, Object> target) {
+        Policy.VarExpiration<CacheKey, Object> from = sharedCache.policy().expireVariably().orElse(null);
+        Policy.VarExpiration<CacheKey, Object> to = target.policy().expireVariably().orElse(null);
+        // Walk a copy, in case a listener updates the index meanwhile
+        for (CacheKey key : List.copyOf(groupKeys)) {
+            Object value = sharedCache.policy().getIfPresentQuietly(key);
+            if (value == null) {
+                continue;
+            }
+            OptionalLong remainingNanos = from != null ? from.getExpiresAfter(key, TimeUnit.NANOSECONDS) : OptionalLong.empty();
+            if (to != null && remainingNanos.isPresent()) {
+                to.putIfAbsent(key, value, remainingNanos.getAsLong(), TimeUnit.NANOSECONDS);
+            } else {
+                target.asMap().putIfAbsent(key, value);
+            }
+            migratedEntries.mark(key, value);
+            if (!sharedCache.asMap().remove(key, value)) {
+                migratedEntries.unmark(key, value);
+            }
+        }
+    }
+
+    private Cache<CacheKey, Object> createFor(CacheGroup group) {
+        CacheTtlProperties.GroupLimit limit = limits.get(group.name());
+        if (limit == null || !limit.isBounded()) {
+            return sharedCache;
+        }
+        Cache<CacheKey, Object> segment = segmentFactory.apply(limit);
+        segments.put(group, segment);
+        return segment;
+    }
+}
@@ -1,19 +1,38 @@
 package com.biswamit.cache.config;
 
+import com.biswamit.cache.key.CacheKey;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Maps application.properties to a configuration object for cache TTLs.
- * This class holds the default TTL and a map of specific TTLs for cache keys.
+ * This class holds the default TTL and a map of specific TTLs for cache keys,
+ * plus optional per-group memory bounds, expiry settings and negative-entry TTLs, the off-heap
+ * tier behind bounded groups, the warm-start snapshot, the cross-node invalidation bus, the
+ * executor and coalescing of loads, and the settings for reloading the TTL rules at runtime.
  */
 @ConfigurationProperties(prefix = "app.cache.ttl")
 public class CacheTtlProperties {
 
     private Duration defaultTtl = Duration.ofMinutes(30);
     private Map<String, Duration> keys = new HashMap<>();
+    private Map<String, GroupLimit> limits = new HashMap<>();
+    private Map<String, GroupExpiry> expiry = new HashMap<>();
+    private Map<String, Duration> negative = new HashMap<>();
+    private Set<String> canonicalize = new HashSet<>();
+    private Reload reload = new Reload();
+    private OffHeap offHeap = new OffHeap();
+    private Snapshot snapshot = new Snapshot();
+    private Bus bus = new Bus();
+    private Loading loading = new Loading();
 
     // Standard Getters and Setters
     public Duration getDefaultTtl() {
@@ -31,4 +50,495 @@ public class CacheTtlProperties {
     public void setKeys(Map<String, Duration> keys) {
         this.keys = keys;
     }
-}
\ No newline at end of file
+
+    public Map<String, GroupLimit> getLimits() {
+        return limits;
+    }
+
+    public void setLimits(Map<String, GroupLimit> limits) {
+        this.limits = limits;
+    }
+
+    public Map<String, GroupExpiry> getExpiry() {
+        return expiry;
+    }
+
+    public void setExpiry(Map<String, GroupExpiry> expiry) {
+        this.expiry = expiry;
+    }
+
+    /**
+     * The TTLs of negative entries by group, e.g. {@code app.cache.ttl.negative[odyssey.tenant.mapper]=30s}.
+     * A group without one does not cache the absence of a value. They are reloaded with the TTL rules.
+     */
+    public Map<String, Duration> getNegative() {
+        return negative;
+    }
+
+    public void setNegative(Map<String, Duration> negative) {
+        this.negative = negative;
+    }
+
+    /**
+     * The groups whose stored values share equal components, e.g. {@code app.cache.ttl.canonicalize=matrix.event.setting},
+     * see {@link ValueCanonicalizer}.
+     */
+    public Set<String> getCanonicalize() {
+        return canonicalize;
+    }
+
+    public void setCanonicalize(Set<String> canonicalize) {
+        this.canonicalize = canonicalize;
+    }
+
+    public Reload getReload() {
+        return reload;
+    }
+
+    public void setReload(Reload reload) {
+        this.reload = reload;
+    }
+
+    public OffHeap getOffHeap() {
+        return offHeap;
+    }
+
+    public void setOffHeap(OffHeap offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(Snapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public Bus getBus() {
+        return bus;
+    }
+
+    public void setBus(Bus bus) {
+        this.bus = bus;
+    }
+
+    public Loading getLoading() {
+        return loading;
+    }
+
+    public void setLoading(Loading loading) {
+        this.loading = loading;
+    }
+
+    /**
+     * Runtime reloading of the TTL rules, e.g. {@code app.cache.ttl.reload.file=/etc/app/cache-ttl.properties}.
+     * The file uses the same {@code app.cache.ttl.*} keys. The default and key TTLs, the per-group
+     * {@code expiry} settings (jitter, stale-while-revalidate, adaptive bounds) and the {@code negative}
+     * TTLs are reloaded; everything else is only read at startup.
+     */
+    public static class Reload {
+
+        private Path file;
+        private boolean redeadline;
+
+        public Path getFile() {
+            return file;
+        }
+
+        public void setFile(Path file) {
+            this.file = file;
+        }
+
+        /**
+         * If true, entries already cached in a group whose TTL changed get their deadline moved,
+         * as if they had been written under the new rules.
+         */
+        public boolean isRedeadline() {
+            return redeadline;
+        }
+
+        public void setRedeadline(boolean redeadline) {
+            this.redeadline = redeadline;
+        }
+    }
+
+    /**
+     * The warm-start snapshot, e.g. {@code app.cache.ttl.snapshot.file=/var/lib/app/cache.snapshot}.
+     * A snapshot is always written on graceful shutdown, and additionally every {@code interval} if set.
+     */
+    public static class Snapshot {
+
+        private Path file;
+        private Duration interval;
+        private boolean restore = true;
+
+        public Path getFile() {
+            return file;
+        }
+
+        public void setFile(Path file) {
+            this.file = file;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+
+        /**
+         * If true, the entries of the previous snapshot that have not expired are restored at startup.
+         */
+        public boolean isRestore() {
+            return restore;
+        }
+
+        public void setRestore(boolean restore) {
+            this.restore = restore;
+        }
+    }
+
+    /**
+     * The cross-node invalidation bus, e.g. {@code app.cache.ttl.bus.enabled=true}.
+     * The defaults keep multicast on the loopback interface with a hop limit of 0, so every node must
+     * run on the same host; set {@code network-interface} and {@code time-to-live} to span hosts.
+     */
+    public static class Bus {
+
+        public enum Transport { LOOPBACK, MULTICAST }
+
+        private boolean enabled;
+        private Transport transport = Transport.MULTICAST;
+        private String multicastGroup = "239.255.42.99";
+        private int port = 4446;
+        private String networkInterface;
+        private int timeToLive;
+        private Duration flushInterval = Duration.ofMillis(10);
+        private int maxBatchSize = 256;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Transport getTransport() {
+            return transport;
+        }
+
+        public void setTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+        public String getMulticastGroup() {
+            return multicastGroup;
+        }
+
+        public void setMulticastGroup(String multicastGroup) {
+            this.multicastGroup = multicastGroup;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public void setPort(int port) {
+            this.port = port;
+        }
+
+        /**
+         * The name of the interface to multicast on; the loopback interface if not set.
+         */
+        public String getNetworkInterface() {
+            return networkInterface;
+        }
+
+        public void setNetworkInterface(String networkInterface) {
+            this.networkInterface = networkInterface;
+        }
+
+        public int getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(int timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+    }
+
+    /**
+     * The expiry settings of a single group, e.g.
+     * {@code app.cache.ttl.expiry[odyssey.tenant.mapper].jitter-percent=10}. They are reloaded with the TTL rules.
+     */
+    public static class GroupExpiry {
+
+        private int jitterPercent;
+        private Duration staleWhileRevalidate;
+        private Duration adaptiveMinTtl;
+        private Duration adaptiveMaxTtl;
+        private int adaptiveKeys = 16_384;
+
+        /**
+         * Shortens each entry's TTL by a random amount of up to this percentage, so entries written
+         * together do not all expire at once. The configured TTL is never exceeded.
+         */
+        public int getJitterPercent() {
+            return jitterPercent;
+        }
+
+        public void setJitterPercent(int jitterPercent) {
+            this.jitterPercent = jitterPercent;
+        }
+
+        /**
+         * For this long after its TTL an entry is still returned, while a background load replaces it.
+         * Only applies to reads that have a loader; other reads treat the entry as expired.
+         */
+        public Duration getStaleWhileRevalidate() {
+            return staleWhileRevalidate;
+        }
+
+        public void setStaleWhileRevalidate(Duration staleWhileRevalidate) {
+            this.staleWhileRevalidate = staleWhileRevalidate;
+        }
+
+        /**
+         * Together with {@code adaptiveMaxTtl}, makes the TTLs of the group adapt to how often each
+         * key is read and updated: hot keys that rarely change live longer, cold or churny keys
+         * shorter, never outside these bounds.
+         */
+        public Duration getAdaptiveMinTtl() {
+            return adaptiveMinTtl;
+        }
+
+        public void setAdaptiveMinTtl(Duration adaptiveMinTtl) {
+            this.adaptiveMinTtl = adaptiveMinTtl;
+        }
+
+        public Duration getAdaptiveMaxTtl() {
+            return adaptiveMaxTtl;
+        }
+
+        public void setAdaptiveMaxTtl(Duration adaptiveMaxTtl) {
+            this.adaptiveMaxTtl = adaptiveMaxTtl;
+        }
+
+        /**
+         * The number of distinct keys the frequency sketches of an adaptive group are sized for,
+         * at about 16 bytes per key. Only read when the sketches are first created.
+         */
+        public int getAdaptiveKeys() {
+            return adaptiveKeys;
+        }
+
+        public void setAdaptiveKeys(int adaptiveKeys) {
+            this.adaptiveKeys = adaptiveKeys;
+        }
+    }
+
+    /**
+     * The bound of a single group, e.g. {@code app.cache.ttl.limits[odyssey.tenant.mapper].max-size=64MB}.
+     * If both are set, {@code maxSize} (estimated bytes) takes precedence over {@code maxEntries}.
+     */
+    public static class GroupLimit {
+
+        private Long maxEntries;
+        private DataSize maxSize;
+
+        public Long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(Long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public boolean isBounded() {
+            return maxSize != null || maxEntries != null;
+        }
+
+        /**
+         * Applies this bound to a cache builder: a maximum weight with a {@link ValueWeigher},
+         * or a maximum entry count.
+         */
+        public Caffeine<CacheKey, Object> applyTo(Caffeine<CacheKey, Object> builder) {
+            if (maxSize != null) {
+                return builder.maximumWeight(maxSize.toBytes()).weigher(new ValueWeigher());
+            }
+            if (maxEntries != null) {
+                return builder.maximumSize(maxEntries);
+            }
+            return builder;
+        }
+    }
+
+    /**
+     * The off-heap second tier, e.g. {@code app.cache.ttl.off-heap.enabled=true}.
+     * Entries evicted for size from a bounded group are kept off-heap until they expire or the
+     * tier runs out of capacity. By default every group with a limit is tiered.
+     */
+    public static class OffHeap {
+
+        private boolean enabled;
+        private DataSize capacity = DataSize.ofMegabytes(64);
+        private DataSize blockSize = DataSize.ofBytes(256);
+        private Duration sweepInterval = Duration.ofSeconds(30);
+        private Set<String> groups = new HashSet<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public DataSize getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(DataSize capacity) {
+            this.capacity = capacity;
+        }
+
+        public DataSize getBlockSize() {
+            return blockSize;
+        }
+
+        public void setBlockSize(DataSize blockSize) {
+            this.blockSize = blockSize;
+        }
+
+        public Duration getSweepInterval() {
+            return sweepInterval;
+        }
+
+        public void setSweepInterval(Duration sweepInterval) {
+            this.sweepInterval = sweepInterval;
+        }
+
+        /**
+         * The bounded groups to tier; if empty, all bounded groups are tiered.
+         */
+        public Set<String> getGroups() {
+            return groups;
+        }
+
+        public void setGroups(Set<String> groups) {
+            this.groups = groups;
+        }
+    }
+
+    /**
+     * Where cache loads run, e.g. {@code app.cache.ttl.loading.executor=virtual}, and which groups
+     * gather single-key misses into bulk loads, e.g. {@code app.cache.ttl.loading.coalesce-groups=odyssey.tenant.mapper}.
+     */
+    public static class Loading {
+
+        public enum ExecutorType { COMMON_POOL, FIXED, VIRTUAL }
+
+        private ExecutorType executor = ExecutorType.COMMON_POOL;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private Set<String> coalesceGroups = new HashSet<>();
+        private Duration coalesceWindow = Duration.ofMillis(2);
+        private int coalesceMaxKeys = 64;
+        private Duration coalesceTimeout = Duration.ofSeconds(30);
+
+        /**
+         * The executor of background refreshes, bulk loads and Caffeine's maintenance. {@code virtual}
+         * starts a virtual thread per task and requires a Java 21 runtime.
+         */
+        public ExecutorType getExecutor() {
+            return executor;
+        }
+
+        public void setExecutor(ExecutorType executor) {
+            this.executor = executor;
+        }
+
+        /**
+         * The number of threads of the {@code fixed} executor.
+         */
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        /**
+         * The groups whose single-key misses are gathered into one {@link com.biswamit.cache.service.GroupLoader#loadAll}
+         * call; if empty, every miss is loaded on its own.
+         */
+        public Set<String> getCoalesceGroups() {
+            return coalesceGroups;
+        }
+
+        public void setCoalesceGroups(Set<String> coalesceGroups) {
+            this.coalesceGroups = coalesceGroups;
+        }
+
+        /**
+         * The longest time a miss waits for others to join its bulk load.
+         */
+        public Duration getCoalesceWindow() {
+            return coalesceWindow;
+        }
+
+        public void setCoalesceWindow(Duration coalesceWindow) {
+            this.coalesceWindow = coalesceWindow;
+        }
+
+        /**
+         * The number of gathered misses that sends a bulk load before the window ends.
+         */
+        public int getCoalesceMaxKeys() {
+            return coalesceMaxKeys;
+        }
+
+        public void setCoalesceMaxKeys(int coalesceMaxKeys) {
+            this.coalesceMaxKeys = coalesceMaxKeys;
+        }
+
+        /**
+         * The longest time a miss waits for its bulk load to finish before it fails.
+         */
+        public Duration getCoalesceTimeout() {
+            return coalesceTimeout;
+        }
+
+        public void setCoalesceTimeout(Duration coalesceTimeout) {
+            this.coalesceTimeout = coalesceTimeout;
+        }
+    }
+}
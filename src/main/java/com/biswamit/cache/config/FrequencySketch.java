@@ -0,0 +1,203 @@
+package com.biswamit.cache.config;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A count-min sketch estimating how often each key was seen recently, in the style of TinyLFU.
+ *
+ * Each key is counted in four 4-bit counters, one per row, packed sixteen to a long; its
+ * frequency is the smallest of them, so collisions can only overstate it. Counters saturate at
+ * 15, and once ten times the expected number of keys has been counted, every counter is halved,
+ * so the sketch follows recent traffic rather than all-time totals.
+ *
+ * Safe for concurrent use. {@link #increment} counts at once; it suits write paths, whose next
+ * lookup of the same key must see the count. {@link #record} is for the read path, and only
+ * reads shared state for a key that is already at {@link #MAX_FREQUENCY}, which the hot keys of
+ * a read-heavy group soon are. Other reads are appended to one of a few buffers striped by
+ * thread, which mostly keeps threads on separate monitors, and a full buffer is applied in one go
+ * with repeated keys merged. So the table and the shared addition counter are written once per
+ * {@value #BUFFER_SIZE} reads at most rather than on every read, and a frequency may lag by the
+ * reads still buffered. A counter update that loses a race is retried, so no count is lost.
+ */
+public final class FrequencySketch {
+
+    /** The largest frequency a key can reach. */
+    public static final int MAX_FREQUENCY = 15;
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_TABLE_LENGTH = 1 << 24;
+    private static final int BUFFER_SIZE = 16;
+    private static final int STRIPES = Math.min(64, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) << 1);
+
+    private final AtomicLongArray table;
+    private final int tableMask;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+    private final Buffer[] buffers = new Buffer[STRIPES];
+
+    /**
+     * @param expectedKeys The number of distinct keys expected to be counted, which sizes the
+     *                     table at about one long per key.
+     */
+    public FrequencySketch(int expectedKeys) {
+        int keys = Math.max(16, expectedKeys);
+        int length = Math.min(MAX_TABLE_LENGTH, Integer.highestOneBit(keys - 1) << 1);
+        this.table = new AtomicLongArray(length);
+        this.tableMask = length - 1;
+        this.sampleSize = (int) Math.min(Integer.MAX_VALUE, 10L * keys);
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new Buffer();
+        }
+    }
+
+    /**
+     * @return the estimated number of times the key was counted recently, at most {@link #MAX_FREQUENCY}.
+     */
+    public int frequency(int keyHash) {
+        int spread = spread(keyHash);
+        int start = (spread & 3) << 2;
+        int frequency = MAX_FREQUENCY;
+        for (int row = 0; row < SEEDS.length; row++) {
+            int offset = (start + row) << 2;
+            int count = (int) ((table.get(indexOf(spread, row)) >>> offset) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Counts one occurrence of the key, visible to {@link #frequency} on return.
+     */
+    public void increment(int keyHash) {
+        if (add(keyHash, 1)) {
+            addAdditions(1);
+        }
+    }
+
+    /**
+     * Counts one occurrence of the key in the calling thread's buffer, to be applied together with
+     * the next reads recorded there.
+     */
+    public void record(int keyHash) {
+        if (saturated(keyHash)) {
+            return;
+        }
+        Buffer buffer = buffers[spread((int) Thread.currentThread().getId()) & (STRIPES - 1)];
+        synchronized (buffer) {
+            buffer.hashes[buffer.size++] = keyHash;
+            if (buffer.size == BUFFER_SIZE) {
+                drain(buffer.hashes);
+                buffer.size = 0;
+            }
+        }
+    }
+
+    /**
+     * @return whether every counter of the key is at the maximum, reading no further than the
+     *         first one that is not, so a cold key usually costs a single table read.
+     */
+    private boolean saturated(int keyHash) {
+        int spread = spread(keyHash);
+        int start = (spread & 3) << 2;
+        for (int row = 0; row < SEEDS.length; row++) {
+            int offset = (start + row) << 2;
+            if (((table.get(indexOf(spread, row)) >>> offset) & 0xfL) != MAX_FREQUENCY) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Applies a full buffer, each distinct key once with the number of times it was recorded.
+     */
+    private void drain(int[] hashes) {
+        Arrays.sort(hashes);
+        int added = 0;
+        for (int i = 0, run; i < hashes.length; i += run) {
+            run = 1;
+            while (i + run < hashes.length && hashes[i + run] == hashes[i]) {
+                run++;
+            }
+            if (add(hashes[i], run)) {
+                added += run;
+            }
+        }
+        addAdditions(added);
+    }
+
+    /**
+     * Adds a count to each of the key's counters, saturating at {@link #MAX_FREQUENCY}.
+     *
+     * @return whether any of the key's counters was below the maximum.
+     */
+    private boolean add(int keyHash, int count) {
+        int spread = spread(keyHash);
+        int start = (spread & 3) << 2;
+        boolean added = false;
+        for (int row = 0; row < SEEDS.length; row++) {
+            int index = indexOf(spread, row);
+            int offset = (start + row) << 2;
+            while (true) {
+                long value = table.get(index);
+                int current = (int) ((value >>> offset) & 0xfL);
+                if (current == MAX_FREQUENCY) {
+                    break;
+                }
+                int increment = Math.min(count, MAX_FREQUENCY - current);
+                if (table.compareAndSet(index, value, value + ((long) increment << offset))) {
+                    added = true;
+                    break;
+                }
+            }
+        }
+        return added;
+    }
+
+    private void addAdditions(int added) {
+        if (added == 0) {
+            return;
+        }
+        int total = additions.addAndGet(added);
+        if (total >= sampleSize && total - added < sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Halves every counter.
+     */
+    private void reset() {
+        for (int i = 0; i < table.length(); i++) {
+            table.getAndUpdate(i, value -> (value >>> 1) & RESET_MASK);
+        }
+        additions.addAndGet(-sampleSize / 2);
+    }
+
+    private int indexOf(int spread, int row) {
+        long hash = (spread + SEEDS[row]) * SEEDS[row];
+        hash += hash >>> 32;
+        return (int) hash & tableMask;
+    }
+
+    /**
+     * Reads recorded by the threads of one stripe and not yet applied, guarded by its own monitor.
+     */
+    private static final class Buffer {
+        final int[] hashes = new int[BUFFER_SIZE];
+        int size;
+    }
+
+    /**
+     * Mixes the bits of a hash code, so that keys with similar hash codes land far apart.
+     */
+    private static int spread(int hash) {
+        int x = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
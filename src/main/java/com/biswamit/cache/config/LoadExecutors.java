@@ -0,0 +1,56 @@
+package com.biswamit.cache.config;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executor that runs cache loads, see {@link CacheTtlProperties.Loading#getExecutor()}.
+ *
+ * The backends behind the loaders are blocking, so a load parks its thread for the length of a
+ * remote call. On the common pool a burst of misses can take every worker; a fixed pool bounds
+ * that to its own threads, and virtual threads park without holding a carrier thread at all.
+ */
+public final class LoadExecutors {
+
+    private LoadExecutors() {
+    }
+
+    public static Executor create(CacheTtlProperties.Loading loading) {
+        return switch (loading.getExecutor()) {
+            case COMMON_POOL -> ForkJoinPool.commonPool();
+            case FIXED -> fixed(loading.getThreads());
+            case VIRTUAL -> virtual();
+        };
+    }
+
+    private static ExecutorService fixed(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "cache-loader-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Looks the factory up at runtime, so that the build still targets Java 17.
+     *
+     * @throws IllegalStateException if the runtime is older than Java 21.
+     */
+    private static ExecutorService virtual() {
+        try {
+            return (ExecutorService) MethodHandles.publicLookup()
+                    .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class))
+                    .invoke();
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Virtual-thread cache loads require a Java 21 runtime", e);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to create the virtual-thread executor", e);
+        }
+    }
+}
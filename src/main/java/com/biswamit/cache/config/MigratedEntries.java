@@ -0,0 +1,37 @@
+package com.biswamit.cache.config;
+
+import com.biswamit.cache.key.CacheKey;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The entries {@link CacheSegments} is moving from the shared cache into a group's dedicated cache.
+ *
+ * Caffeine has no silent removal, so taking a moved entry out of the shared cache notifies the
+ * removal listeners with cause {@link RemovalCause#EXPLICIT}. The listeners ask here first and skip
+ * such a notification, so a move is neither counted as a removal nor published as one. Each mark is
+ * consumed by the one notification it stands for.
+ */
+public class MigratedEntries {
+
+    private final ConcurrentMap<CacheKey, Object> moving = new ConcurrentHashMap<>();
+
+    void mark(CacheKey key, Object value) {
+        moving.put(key, value);
+    }
+
+    void unmark(CacheKey key, Object value) {
+        moving.remove(key, value);
+    }
+
+    /**
+     * @return {@code true} if the removal only moved the entry to another cache, consuming its mark.
+     */
+    public boolean isMove(@Nullable CacheKey key, @Nullable Object value, RemovalCause cause) {
+        return cause == RemovalCause.EXPLICIT && key != null && value != null
+                && !moving.isEmpty() && moving.remove(key, value);
+    }
+}
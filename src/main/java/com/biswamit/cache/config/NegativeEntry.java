@@ -0,0 +1,20 @@
+package com.biswamit.cache.config;
+
+/**
+ * The value cached for a key that is known to have no value, so repeated lookups of a missing
+ * key stop reaching the backend. There is a single shared instance, compared by identity; the
+ * service never returns it to callers, and {@link PerKeyExpiryPolicy} gives it the group's
+ * negative TTL instead of the regular one.
+ */
+public final class NegativeEntry {
+
+    public static final NegativeEntry INSTANCE = new NegativeEntry();
+
+    private NegativeEntry() {
+    }
+
+    @Override
+    public String toString() {
+        return "<absent>";
+    }
+}
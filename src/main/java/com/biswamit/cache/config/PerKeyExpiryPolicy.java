@@ -1,11 +1,14 @@
 package com.biswamit.cache.config;
 
+import com.biswamit.cache.key.CacheGroup;
+import com.biswamit.cache.key.CacheKey;
 import com.github.benmanes.caffeine.cache.Expiry;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Custom Expiry policy for Caffeine that implements hierarchical TTL resolution.
@@ -13,57 +16,104 @@ import java.time.Duration;
  * 1. A highly specific key (e.g., "group.subKey").
  * 2. A group-level key (e.g., "group").
  * 3. A global default.
+ * Rule keys may be globs such as "matrix.*"; among matching rules the most specific one wins.
+ * The rules are compiled once into a {@link TtlRuleIndex} and pre-resolved onto each interned
+ * {@link com.biswamit.cache.key.CacheGroup}, so resolution reads the key's group reference
+ * instead of parsing the key, and does not allocate.
+ *
+ * The lifetime of a new or updated entry is its TTL, shortened by a random jitter if the group
+ * has one, plus the group's stale-while-revalidate grace window: the entry stays in the cache
+ * through the grace window, and readers tell a stale entry by its remaining time being within it.
+ * A {@link NegativeEntry} lives for the group's negative TTL instead, without jitter or grace.
+ *
+ * In a group with adaptive TTLs, reads and updates of each key are counted in the group's
+ * frequency sketches, and the TTL is scaled by how often the key is read per update before the
+ * jitter is applied, see {@link #adaptNanos}. The TTL is fixed when the value is written or
+ * loaded, so a value is never kept longer than the group's maximum after it was written.
  */
-public class PerKeyExpiryPolicy implements Expiry<String, Object> {
+public class PerKeyExpiryPolicy implements Expiry<CacheKey, Object> {
 
     private static final Logger logger = LoggerFactory.getLogger(PerKeyExpiryPolicy.class);
-    private final CacheTtlProperties ttlProperties;
-    private static final char DELIMITER = ':';
-
-    public PerKeyExpiryPolicy(CacheTtlProperties ttlProperties) {
-        this.ttlProperties = ttlProperties;
-    }
 
     @Override
-    public long expireAfterCreate(@NonNull String compositeKey, @NonNull Object value, long currentTime) {
-        Duration duration = resolveDuration(compositeKey);
-        logger.debug("Cache entry created for key '{}' with TTL: {}", compositeKey, duration);
-        return duration.toNanos();
+    public long expireAfterCreate(@NonNull CacheKey compositeKey, @NonNull Object value, long currentTime) {
+        long nanos = lifetimeNanos(compositeKey, value);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Cache entry created for key '{}' with TTL: {}", compositeKey, Duration.ofNanos(nanos));
+        }
+        return nanos;
     }
 
     @Override
-    public long expireAfterUpdate(@NonNull String compositeKey, @NonNull Object value, long currentTime, long currentDuration) {
-        // On update, re-calculate the duration as properties might have changed
-        Duration duration = resolveDuration(compositeKey);
-        logger.debug("Cache entry updated for key '{}'. New TTL: {}", compositeKey, duration);
-        return duration.toNanos();
+    public long expireAfterUpdate(@NonNull CacheKey compositeKey, @NonNull Object value, long currentTime, long currentDuration) {
+        CacheGroup group = compositeKey.group();
+        if (group.adaptive() != null) {
+            group.updates().increment(compositeKey.hashCode());
+        }
+        // On update, re-calculate the duration from the rule index
+        long nanos = lifetimeNanos(compositeKey, value);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Cache entry updated for key '{}'. New TTL: {}", compositeKey, Duration.ofNanos(nanos));
+        }
+        return nanos;
     }
 
     @Override
-    public long expireAfterRead(@NonNull String key, @NonNull Object value, long currentTime, long currentDuration) {
-        // Do not change expiration on read access
+    public long expireAfterRead(@NonNull CacheKey key, @NonNull Object value, long currentTime, long currentDuration) {
+        CacheGroup group = key.group();
+        if (group.adaptive() != null) {
+            group.reads().record(key.hashCode());
+        }
+        // Do not change expiration on read access, the count only affects the next write
         return currentDuration;
     }
 
-    private Duration resolveDuration(String compositeKey) {
-        // 1. Check for the most specific key TTL (e.g., "group:subKey" -> "group.subKey" in properties)
-        String specificPropertyKey = compositeKey.replace(DELIMITER, '.');
-        Duration specificTtl = ttlProperties.getKeys().get(specificPropertyKey);
-        if (specificTtl != null) {
-            return specificTtl;
-        }
+    /**
+     * Resolves the TTL for a composite key.
+     */
+    public Duration resolveDuration(CacheKey compositeKey) {
+        return Duration.ofNanos(resolveNanos(compositeKey));
+    }
+
+    /**
+     * Resolves the TTL for a composite key in nanoseconds without allocating.
+     */
+    public long resolveNanos(CacheKey compositeKey) {
+        return compositeKey.group().ttlNanos(compositeKey);
+    }
 
-        // 2. Check for the group-level key TTL
-        int delimiterIndex = compositeKey.indexOf(DELIMITER);
-        if (delimiterIndex > 0) {
-            String groupPropertyKey = compositeKey.substring(0, delimiterIndex);
-            Duration groupTtl = ttlProperties.getKeys().get(groupPropertyKey);
-            if (groupTtl != null) {
-                return groupTtl;
-            }
+    /**
+     * Resolves how long a new entry stays in the cache: its adapted and jittered TTL plus the grace
+     * window, or the negative TTL for a {@link NegativeEntry}.
+     */
+    public long lifetimeNanos(CacheKey compositeKey, Object value) {
+        CacheGroup group = compositeKey.group();
+        if (value == NegativeEntry.INSTANCE && group.negativeNanos() > 0) {
+            return group.negativeNanos();
         }
+        long nanos = group.ttlNanos(compositeKey);
+        TtlRuleIndex.Adaptive adaptive = group.adaptive();
+        if (adaptive != null) {
+            nanos = adaptNanos(compositeKey, nanos, adaptive);
+        }
+        int jitterPercent = group.jitterPercent();
+        if (jitterPercent > 0) {
+            nanos -= ThreadLocalRandom.current().nextLong(nanos / 100 * jitterPercent + 1);
+        }
+        return nanos + group.graceNanos();
+    }
 
-        // 3. Fallback to the global default TTL
-        return ttlProperties.getDefaultTtl();
+    /**
+     * Scales a TTL by how often the key was recently read per update, then bounds it. A key read
+     * about twice per update keeps the TTL, and a hot key that rarely changes gets up to 8 times
+     * more. A key that is never read, or replaced as often as it is read, gets half, and one
+     * replaced far more often than it is read down to a 32nd.
+     */
+    public long adaptNanos(CacheKey compositeKey, long ttlNanos, TtlRuleIndex.Adaptive adaptive) {
+        CacheGroup group = compositeKey.group();
+        int reads = group.reads().frequency(compositeKey.hashCode());
+        int updates = group.updates().frequency(compositeKey.hashCode());
+        double nanos = ttlNanos * ((reads + 1) / (2.0 * (updates + 1)));
+        return Math.max(adaptive.minNanos(), Math.min(adaptive.maxNanos(), (long) nanos));
     }
 }
@@ -0,0 +1,81 @@
+package com.biswamit.cache.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * Watches the file configured by {@code app.cache.ttl.reload.file} and reloads the TTL rules
+ * through the {@link TtlConfigReloader} whenever it is created or modified.
+ */
+public class TtlConfigFileWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(TtlConfigFileWatcher.class);
+
+    private final TtlConfigReloader reloader;
+    private final Path file;
+    private final boolean redeadline;
+    private WatchService watchService;
+    private Thread watcherThread;
+
+    public TtlConfigFileWatcher(TtlConfigReloader reloader, CacheTtlProperties.Reload reload) {
+        this.reloader = reloader;
+        this.file = reload.getFile().toAbsolutePath();
+        this.redeadline = reload.isRedeadline();
+    }
+
+    public void start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watcherThread = new Thread(this::watch, "cache-ttl-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+        logger.info("Watching '{}' for cache TTL changes", file);
+    }
+
+    public void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (file.getFileName().equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            logger.debug("Stopped watching '{}'", file);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void reload() {
+        try {
+            reloader.reload(file, redeadline);
+        } catch (IOException | RuntimeException e) {
+            // Keep the current rules, the next change to the file is picked up again
+            logger.warn("Failed to reload cache TTL rules from '{}'", file, e);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.biswamit.cache.config;
+
+import com.biswamit.cache.key.CacheGroup;
+import com.biswamit.cache.key.CacheGroupRegistry;
+import com.biswamit.cache.key.CacheKey;
+import com.biswamit.cache.key.GroupKeyIndex;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Reloads the TTL rules at runtime by compiling a new {@link TtlRuleIndex} and publishing it
+ * atomically through the {@link CacheGroupRegistry}. New writes use the new rules immediately.
+ * Entries already in the cache keep their TTL unless a re-deadline is requested, in which
+ * case each entry is moved by the difference between its new and old TTL through Caffeine's
+ * {@link Policy.VarExpiration}, as if it had been written under the new rules.
+ *
+ * A cached entry's deadline includes the grace window of its group, and readers tell a stale
+ * entry by its remaining time being within the current grace window. So when a group's grace
+ * window changes, its entries are always moved by the change, with or without a re-deadline;
+ * otherwise an entry already past its TTL would read as fresh once the grace window shrinks.
+ */
+public class TtlConfigReloader {
+
+    private static final Logger logger = LoggerFactory.getLogger(TtlConfigReloader.class);
+    private static final String PREFIX = "app.cache.ttl";
+
+    private final CacheGroupRegistry groupRegistry;
+    private final CacheSegments segments;
+    private final GroupKeyIndex groupKeyIndex;
+
+    public TtlConfigReloader(CacheGroupRegistry groupRegistry, CacheSegments segments, GroupKeyIndex groupKeyIndex) {
+        this.groupRegistry = groupRegistry;
+        this.segments = segments;
+        this.groupKeyIndex = groupKeyIndex;
+    }
+
+    /**
+     * Publishes the TTL rules of the given properties.
+     *
+     * @param ttlProperties The new rules.
+     * @param redeadline Whether to move the deadlines of entries already cached.
+     */
+    public void reload(CacheTtlProperties ttlProperties, boolean redeadline) {
+        TtlRuleIndex ruleIndex = TtlRuleIndex.compile(ttlProperties);
+        TtlRuleIndex previous = groupRegistry.reload(ruleIndex);
+        logger.info("Reloaded cache TTL rules: {} key rules, default TTL {}",
+                ttlProperties.getKeys().size(), ttlProperties.getDefaultTtl());
+        for (CacheGroup group : groupRegistry.groups()) {
+            if (!redeadline && ruleIndex.graceNanos(group.name()) == previous.graceNanos(group.name())) {
+                continue;
+            }
+            int updated = redeadline(group, previous, ruleIndex, redeadline);
+            if (updated > 0) {
+                logger.info("Moved the deadline of {} entries in group '{}'", updated, group);
+            }
+        }
+    }
+
+    /**
+     * Reads {@code app.cache.ttl.*} properties from a file and publishes them.
+     */
+    public void reload(Path file, boolean redeadline) throws IOException {
+        reload(read(file), redeadline);
+    }
+
+    /**
+     * Binds the {@code app.cache.ttl.*} properties of a file the same way Spring binds application.properties.
+     */
+    public static CacheTtlProperties read(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        }
+        return new Binder(new MapConfigurationPropertySource(properties))
+                .bind(PREFIX, CacheTtlProperties.class)
+                .orElseGet(CacheTtlProperties::new);
+    }
+
+    /**
+     * Moves the deadline of every entry of the group by the change of the group's grace window and,
+     * if the TTLs are re-deadlined, by the change of its TTL. A {@link NegativeEntry} has no grace
+     * and is moved by the change of the group's negative TTL instead, so it never outlives the new
+     * negative TTL. Entries whose new deadline has already passed are invalidated.
+     *
+     * @param ttls Whether to apply the change of the TTLs, not only that of the grace window.
+     * @return the number of entries updated or invalidated.
+     */
+    private int redeadline(CacheGroup group, TtlRuleIndex previous, TtlRuleIndex current, boolean ttls) {
+        Cache<CacheKey, Object> cache = segments.cacheFor(group);
+        Optional<Policy.VarExpiration<CacheKey, Object>> expiration = cache.policy().expireVariably();
+        if (expiration.isEmpty()) {
+            return 0;
+        }
+        long graceDelta = current.graceNanos(group.name()) - previous.graceNanos(group.name());
+        long negativeDelta = ttls ? current.negativeNanos(group.name()) - previous.negativeNanos(group.name()) : 0;
+        int updated = 0;
+        for (CacheKey key : groupKeyIndex.keys(group)) {
+            Object value = cache.policy().getIfPresentQuietly(key);
+            if (value == null) {
+                continue;
+            }
+            long delta;
+            if (value == NegativeEntry.INSTANCE) {
+                delta = negativeDelta;
+            } else {
+                delta = graceDelta + (ttls ? group.ttlNanos(key, current) - group.ttlNanos(key, previous) : 0);
+            }
+            if (delta == 0) {
+                continue;
+            }
+            Optional<Duration> remaining = expiration.get().getExpiresAfter(key);
+            if (remaining.isEmpty()) {
+                continue;
+            }
+            long remainingNanos = remaining.get().toNanos() + delta;
+            if (remainingNanos <= 0) {
+                cache.invalidate(key);
+            } else {
+                expiration.get().setExpiresAfter(key, Duration.ofNanos(remainingNanos));
+            }
+            updated++;
+        }
+        return updated;
+    }
+}
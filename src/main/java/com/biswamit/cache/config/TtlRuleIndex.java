@@ -0,0 +1,485 @@
+package com.biswamit.cache.config;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Immutable, precompiled view of the TTL rules held in {@link CacheTtlProperties}.
+ * The rule keys are compiled once into a deterministic automaton so that resolving the TTL of a
+ * composite key ("group:subKey") is a single left-to-right walk over its characters:
+ * no intermediate Strings are built and no map lookups are performed.
+ * All durations are stored as precomputed nanosecond values.
+ *
+ * Rule keys may be globs: {@code *} matches any run of characters, dots included, and {@code ?}
+ * matches exactly one, so {@code matrix.*} covers every group and key under "matrix.". The rules
+ * are first laid out as a trie whose wildcard nodes make it non-deterministic, then turned into
+ * one automaton by subset construction, so the cost of a lookup depends on the length of the key
+ * and not on the number of rules. When several rules match, the most specific one wins: the one
+ * with more literal characters, then the one with fewer {@code *}, then the lexically smaller key.
+ * An exact rule therefore always beats a glob matching the same key.
+ *
+ * The index also carries the per-group expiry settings (TTL jitter, stale-while-revalidate grace,
+ * negative-entry TTL and adaptive TTL bounds), so they are swapped together with the TTL rules on a reload.
+ */
+public final class TtlRuleIndex {
+
+    /** Marker for automaton states that do not terminate a configured rule. */
+    public static final long NO_RULE = -1L;
+
+    /** Rank of automaton states that do not terminate a configured rule, lower than any rule. */
+    public static final long NO_RANK = Long.MIN_VALUE;
+
+    /** Upper bound on the automaton size, reached only by many overlapping wildcards. */
+    static final int MAX_STATES = 250_000;
+
+    private static final char ANY_RUN = '*';
+    private static final char ANY_CHAR = '?';
+
+    private static final char DELIMITER = ':';
+    private static final char SEPARATOR = '.';
+
+    private final Node root;
+    private final long defaultNanos;
+    private final Map<String, Integer> jitterPercents;
+    private final Map<String, Long> graceNanos;
+    private final Map<String, Long> negativeNanos;
+    private final Map<String, Adaptive> adaptive;
+
+    private TtlRuleIndex(Node root, long defaultNanos, Map<String, Integer> jitterPercents, Map<String, Long> graceNanos,
+                         Map<String, Long> negativeNanos, Map<String, Adaptive> adaptive) {
+        this.root = root;
+        this.defaultNanos = defaultNanos;
+        this.jitterPercents = Map.copyOf(jitterPercents);
+        this.graceNanos = Map.copyOf(graceNanos);
+        this.negativeNanos = Map.copyOf(negativeNanos);
+        this.adaptive = Map.copyOf(adaptive);
+    }
+
+    /**
+     * Compiles the rules currently present in the given properties.
+     * Later changes to the properties object are not reflected in the returned index.
+     */
+    public static TtlRuleIndex compile(CacheTtlProperties ttlProperties) {
+        List<NodeBuilder> nodes = new ArrayList<>();
+        NodeBuilder rootBuilder = new NodeBuilder(nodes, false);
+        for (Map.Entry<String, Duration> rule : ttlProperties.getKeys().entrySet()) {
+            if (rule.getKey() == null || rule.getValue() == null) {
+                continue;
+            }
+            rootBuilder.add(rule.getKey(), rule.getValue().toNanos(), nodes);
+        }
+        Map<String, Integer> jitterPercents = new HashMap<>();
+        Map<String, Long> graceNanos = new HashMap<>();
+        Map<String, Adaptive> adaptive = new HashMap<>();
+        for (Map.Entry<String, CacheTtlProperties.GroupExpiry> expiry : ttlProperties.getExpiry().entrySet()) {
+            int jitterPercent = expiry.getValue().getJitterPercent();
+            if (jitterPercent < 0 || jitterPercent > 100) {
+                throw new IllegalArgumentException("Jitter of group '" + expiry.getKey() + "' must be between 0 and 100 percent");
+            }
+            if (jitterPercent > 0) {
+                jitterPercents.put(expiry.getKey(), jitterPercent);
+            }
+            Duration grace = expiry.getValue().getStaleWhileRevalidate();
+            if (grace != null && !grace.isNegative() && !grace.isZero()) {
+                graceNanos.put(expiry.getKey(), grace.toNanos());
+            }
+            Duration minTtl = expiry.getValue().getAdaptiveMinTtl();
+            Duration maxTtl = expiry.getValue().getAdaptiveMaxTtl();
+            if (minTtl != null || maxTtl != null) {
+                if (minTtl == null || maxTtl == null || minTtl.isNegative() || minTtl.isZero() || maxTtl.compareTo(minTtl) < 0) {
+                    throw new IllegalArgumentException("Adaptive TTL of group '" + expiry.getKey()
+                            + "' needs a positive adaptive-min-ttl no greater than adaptive-max-ttl");
+                }
+                adaptive.put(expiry.getKey(), new Adaptive(minTtl.toNanos(), maxTtl.toNanos(), expiry.getValue().getAdaptiveKeys()));
+            }
+        }
+        Map<String, Long> negativeNanos = new HashMap<>();
+        for (Map.Entry<String, Duration> negative : ttlProperties.getNegative().entrySet()) {
+            if (negative.getValue() != null && !negative.getValue().isNegative() && !negative.getValue().isZero()) {
+                negativeNanos.put(negative.getKey(), negative.getValue().toNanos());
+            }
+        }
+        return new TtlRuleIndex(determinize(rootBuilder, nodes), ttlProperties.getDefaultTtl().toNanos(), jitterPercents,
+                graceNanos, negativeNanos, adaptive);
+    }
+
+    /**
+     * Resolves the TTL, in nanoseconds, for a composite key using the hierarchy:
+     * 1. The most specific rule matching the whole key ("group:subKey" matched as "group.subKey").
+     * 2. The most specific rule matching the group (the part before the first ':').
+     * 3. The global default.
+     * A group rule still wins over a glob on the whole key that is less specific than it.
+     */
+    public long resolveNanos(String compositeKey) {
+        int delimiterIndex = compositeKey.indexOf(DELIMITER);
+        long groupNanos = NO_RULE;
+        long groupRank = NO_RANK;
+        Node node = root;
+        for (int i = 0; i < compositeKey.length() && node != null; i++) {
+            if (i == delimiterIndex && i > 0) {
+                groupNanos = node.nanos;
+                groupRank = node.rank;
+            }
+            node = node.child(normalize(compositeKey.charAt(i)));
+        }
+        if (node != null && node.nanos != NO_RULE && node.rank >= groupRank) {
+            return node.nanos;
+        }
+        return groupNanos != NO_RULE ? groupNanos : defaultNanos;
+    }
+
+    /**
+     * Finds the automaton state reached by a rule key, e.g. the state for a group name.
+     *
+     * @return the state, or {@code null} if no configured rule can match a key starting with the given one.
+     */
+    public Node find(String ruleKey) {
+        Node node = root;
+        for (int i = 0; i < ruleKey.length() && node != null; i++) {
+            node = node.child(normalize(ruleKey.charAt(i)));
+        }
+        return node;
+    }
+
+    /**
+     * @return the global default TTL in nanoseconds.
+     */
+    public long defaultNanos() {
+        return defaultNanos;
+    }
+
+    /**
+     * @return the percentage by which the TTLs of the group are randomly shortened, 0 for none.
+     */
+    public int jitterPercent(String group) {
+        return jitterPercents.getOrDefault(group, 0);
+    }
+
+    /**
+     * @return the stale-while-revalidate grace window of the group in nanoseconds, 0 for none.
+     */
+    public long graceNanos(String group) {
+        return graceNanos.getOrDefault(group, 0L);
+    }
+
+    /**
+     * @return the TTL of negative entries of the group in nanoseconds, 0 if they are not cached.
+     */
+    public long negativeNanos(String group) {
+        return negativeNanos.getOrDefault(group, 0L);
+    }
+
+    /**
+     * @return the adaptive TTL settings of the group, or {@code null} if its TTLs are fixed.
+     */
+    public Adaptive adaptive(String group) {
+        return adaptive.get(group);
+    }
+
+    /**
+     * Maps the composite key delimiter onto the property key separator.
+     */
+    public static char normalize(char c) {
+        return c == DELIMITER ? SEPARATOR : c;
+    }
+
+    /**
+     * The adaptive TTL settings of a group.
+     *
+     * @param minNanos The shortest TTL a key can get, in nanoseconds.
+     * @param maxNanos The longest TTL a key can get, in nanoseconds.
+     * @param expectedKeys The number of distinct keys the frequency sketches are sized for.
+     */
+    public record Adaptive(long minNanos, long maxNanos, int expectedKeys) {
+    }
+
+    /**
+     * Turns the rule trie into a deterministic automaton. Each state stands for the set of trie
+     * nodes a key prefix can reach; its transitions are the literal labels of those nodes, and one
+     * fallback transition for every other character that only the wildcards accept.
+     */
+    private static Node determinize(NodeBuilder rootBuilder, List<NodeBuilder> nodes) {
+        rootBuilder.settle();
+        Map<Members, Node> states = new HashMap<>();
+        Deque<Members> pending = new ArrayDeque<>();
+        Members.Builder start = new Members.Builder();
+        rootBuilder.close(start);
+        Node root = state(start.build(), nodes, states, pending);
+        while (!pending.isEmpty()) {
+            Members members = pending.poll();
+            TreeSet<Character> labels = new TreeSet<>();
+            for (int id : members.ids) {
+                labels.addAll(nodes.get(id).children.keySet());
+            }
+            char[] labelArray = new char[labels.size()];
+            Node[] children = new Node[labels.size()];
+            int i = 0;
+            for (char label : labels) {
+                labelArray[i] = label;
+                children[i] = state(move(members, label, nodes), nodes, states, pending);
+                i++;
+            }
+            Node otherwise = state(move(members, null, nodes), nodes, states, pending);
+            states.get(members).link(labelArray, children, otherwise);
+        }
+        return root;
+    }
+
+    /**
+     * @return the trie nodes reached from the given ones on a character, or on a character none
+     *         of them has a literal transition for if {@code label} is {@code null}.
+     */
+    private static Members move(Members members, Character label, List<NodeBuilder> nodes) {
+        Members.Builder next = new Members.Builder();
+        for (int id : members.ids) {
+            NodeBuilder node = nodes.get(id);
+            NodeBuilder child = label != null ? node.children.get(label) : null;
+            if (child != null) {
+                child.close(next);
+            }
+            if (node.anyChar != null) {
+                node.anyChar.close(next);
+            }
+            if (node.anyRun) {
+                node.close(next);
+            }
+        }
+        return next.build();
+    }
+
+    private static Node state(Members reached, List<NodeBuilder> nodes, Map<Members, Node> states, Deque<Members> pending) {
+        if (reached.ids.length == 0) {
+            return null;
+        }
+        Members members = prune(reached, nodes);
+        Node state = states.get(members);
+        if (state == null) {
+            if (states.size() >= MAX_STATES) {
+                throw new IllegalArgumentException("TTL rules expand into more than " + MAX_STATES
+                        + " automaton states, use fewer overlapping wildcards");
+            }
+            NodeBuilder best = null;
+            for (int id : members.ids) {
+                NodeBuilder node = nodes.get(id);
+                if (node.nanos != NO_RULE && (best == null || node.rank > best.rank
+                        || node.rank == best.rank && node.ruleKey.compareTo(best.ruleKey) < 0)) {
+                    best = node;
+                }
+            }
+            state = best != null ? new Node(best.nanos, best.rank) : new Node(NO_RULE, NO_RANK);
+            states.put(members, state);
+            pending.add(members);
+        }
+        return state;
+    }
+
+    /**
+     * Drops the trie nodes that can no longer decide a match. A {@code *} node ending a rule
+     * matches every continuation of the key, so nodes whose rules all rank below it never win;
+     * without this, a glob such as {@code *.setting.*} would multiply the states of every other rule.
+     */
+    private static Members prune(Members members, List<NodeBuilder> nodes) {
+        long floor = NO_RANK;
+        for (int id : members.ids) {
+            NodeBuilder node = nodes.get(id);
+            if (node.anyRun && node.nanos != NO_RULE) {
+                floor = Math.max(floor, node.rank);
+            }
+        }
+        if (floor == NO_RANK) {
+            return members;
+        }
+        Members.Builder kept = new Members.Builder();
+        for (int id : members.ids) {
+            if (nodes.get(id).maxRank >= floor) {
+                kept.add(id);
+            }
+        }
+        return kept.build();
+    }
+
+    /**
+     * A state of the compiled automaton. Transitions are kept in a sorted label array for binary
+     * search, with a fallback for every other character. States are linked while compiling and
+     * never change once the index is published.
+     */
+    public static final class Node {
+        private final long nanos;
+        private final long rank;
+        private char[] labels;
+        private Node[] children;
+        private Node otherwise;
+
+        private Node(long nanos, long rank) {
+            this.nanos = nanos;
+            this.rank = rank;
+        }
+
+        private void link(char[] labels, Node[] children, Node otherwise) {
+            this.labels = labels;
+            this.children = children;
+            this.otherwise = otherwise;
+        }
+
+        /**
+         * @return the next state, or {@code null} if no rule can match any more.
+         */
+        public Node child(char c) {
+            int index = Arrays.binarySearch(labels, c);
+            return index >= 0 ? children[index] : otherwise;
+        }
+
+        /**
+         * @return the TTL in nanoseconds of the most specific rule ending here, or {@link #NO_RULE}.
+         */
+        public long nanos() {
+            return nanos;
+        }
+
+        /**
+         * @return the specificity of the rule ending here, higher wins, or {@link #NO_RANK}.
+         */
+        public long rank() {
+            return rank;
+        }
+    }
+
+    /**
+     * A node of the rule trie. A {@code *} in a rule key leads to a node that is entered without
+     * consuming a character and then loops on every character; a {@code ?} leads to a node
+     * entered on any single character.
+     */
+    private static final class NodeBuilder {
+        private final int id;
+        private final boolean anyRun;
+        private final TreeMap<Character, NodeBuilder> children = new TreeMap<>();
+        private NodeBuilder anyChar;
+        private NodeBuilder anyRunChild;
+        private long nanos = NO_RULE;
+        private long rank = NO_RANK;
+        private long maxRank = NO_RANK;
+        private String ruleKey;
+
+        private NodeBuilder(List<NodeBuilder> nodes, boolean anyRun) {
+            this.id = nodes.size();
+            this.anyRun = anyRun;
+            nodes.add(this);
+        }
+
+        private void add(String ruleKey, long nanos, List<NodeBuilder> nodes) {
+            NodeBuilder node = this;
+            int literals = 0;
+            int anyRuns = 0;
+            for (int i = 0; i < ruleKey.length(); i++) {
+                char c = ruleKey.charAt(i);
+                if (c == ANY_RUN) {
+                    if (node.anyRun) {
+                        // "**" matches what "*" matches
+                        continue;
+                    }
+                    if (node.anyRunChild == null) {
+                        node.anyRunChild = new NodeBuilder(nodes, true);
+                    }
+                    node = node.anyRunChild;
+                    anyRuns++;
+                } else if (c == ANY_CHAR) {
+                    if (node.anyChar == null) {
+                        node.anyChar = new NodeBuilder(nodes, false);
+                    }
+                    node = node.anyChar;
+                } else {
+                    node = node.children.computeIfAbsent(normalize(c), label -> new NodeBuilder(nodes, false));
+                    literals++;
+                }
+            }
+            long ruleRank = ((long) literals << 32) - anyRuns;
+            if (node.nanos == NO_RULE || ruleRank > node.rank || ruleRank == node.rank && ruleKey.compareTo(node.ruleKey) < 0) {
+                node.nanos = nanos;
+                node.rank = ruleRank;
+                node.ruleKey = ruleKey;
+            }
+        }
+
+        /**
+         * Computes, for this node and every node below it, the highest rank of the rules reachable from it.
+         */
+        private long settle() {
+            maxRank = rank;
+            for (NodeBuilder child : children.values()) {
+                maxRank = Math.max(maxRank, child.settle());
+            }
+            if (anyChar != null) {
+                maxRank = Math.max(maxRank, anyChar.settle());
+            }
+            if (anyRunChild != null) {
+                maxRank = Math.max(maxRank, anyRunChild.settle());
+            }
+            return maxRank;
+        }
+
+        /**
+         * Adds this node and the {@code *} node it enters without consuming a character.
+         */
+        private void close(Members.Builder members) {
+            members.add(id);
+            if (anyRunChild != null) {
+                // A * node has no * child of its own, see add
+                members.add(anyRunChild.id);
+            }
+        }
+    }
+
+    /**
+     * The set of trie nodes an automaton state stands for, as sorted node ids.
+     */
+    private static final class Members {
+        private final int[] ids;
+        private final int hash;
+
+        private Members(int[] ids) {
+            this.ids = ids;
+            this.hash = Arrays.hashCode(ids);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Members other && Arrays.equals(ids, other.ids);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        private static final class Builder {
+            private int[] ids = new int[4];
+            private int size;
+
+            void add(int id) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                }
+                ids[size++] = id;
+            }
+
+            Members build() {
+                Arrays.sort(ids, 0, size);
+                int distinct = 0;
+                for (int i = 0; i < size; i++) {
+                    if (distinct == 0 || ids[i] != ids[distinct - 1]) {
+                        ids[distinct++] = ids[i];
+                    }
+                }
+                return new Members(Arrays.copyOf(ids, distinct));
+            }
+        }
+    }
+}
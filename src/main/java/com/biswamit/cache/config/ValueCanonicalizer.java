@@ -0,0 +1,124 @@
+package com.biswamit.cache.config;
+
+import com.biswamit.cache.key.CacheGroup;
+import com.biswamit.cache.model.TenantEventSetting;
+import com.biswamit.cache.model.TenantMapper;
+import com.biswamit.cache.stats.CacheStatistics;
+import com.github.benmanes.caffeine.cache.Interner;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Replaces the components of values stored in the configured groups by canonical instances, so
+ * that equal components held by many entries are retained once.
+ *
+ * Strings such as regions and gateway URLs go through a weak string interner, event-id lists
+ * through a weak pool of immutable lists, and whole {@link TenantEventSetting}s, which are often
+ * identical across tenants, through a weak interner of their own. The pools hold their instances
+ * weakly, so a component is dropped from its pool once no cached value uses it any more.
+ *
+ * The bytes a value no longer retains, estimated with the {@link ValueWeigher} model, are recorded
+ * per group as {@code canonicalSavedBytes}.
+ */
+public class ValueCanonicalizer {
+
+    private final Set<String> groups;
+    private final CacheStatistics statistics;
+    private final Interner<String> strings = Interner.newWeakInterner();
+    private final Interner<List<String>> lists = Interner.newWeakInterner();
+    private final Interner<TenantEventSetting> eventSettings = Interner.newWeakInterner();
+
+    /**
+     * @param groups The groups whose values are canonicalized.
+     * @param statistics Records the savings per group.
+     */
+    public ValueCanonicalizer(Set<String> groups, CacheStatistics statistics) {
+        this.groups = Set.copyOf(groups);
+        this.statistics = statistics;
+    }
+
+    /**
+     * @return a canonicalizer that leaves every value as it is.
+     */
+    public static ValueCanonicalizer disabled() {
+        return new ValueCanonicalizer(Set.of(), null);
+    }
+
+    /**
+     * @return the value to store: an equal value sharing canonical components, or the value itself
+     *         if the group is not canonicalized or the value type is not understood.
+     */
+    public Object canonicalize(CacheGroup group, Object value) {
+        if (value == null || groups.isEmpty() || !groups.contains(group.name())) {
+            return value;
+        }
+        long[] saved = new long[1];
+        Object canonical = canonicalize(value, saved);
+        if (saved[0] > 0) {
+            statistics.forGroup(group).recordCanonicalSavings(saved[0]);
+        }
+        return canonical;
+    }
+
+    private Object canonicalize(Object value, long[] saved) {
+        if (value instanceof TenantMapper mapper) {
+            String region = string(mapper.region(), saved);
+            String gateway = string(mapper.helixIngestionGW(), saved);
+            if (region == mapper.region() && gateway == mapper.helixIngestionGW()) {
+                return mapper;
+            }
+            return new TenantMapper(mapper.cyborgTenantId(), mapper.odsyId(), region, gateway, mapper.isActive());
+        }
+        if (value instanceof TenantEventSetting setting) {
+            TenantEventSetting canonical = new TenantEventSetting(
+                    list(setting.ensEventSetting(), saved), list(setting.dlpEventSetting(), saved));
+            TenantEventSetting interned = eventSettings.intern(canonical);
+            if (interned != canonical) {
+                saved[0] += ValueWeigher.weighValue(canonical) - ValueWeigher.weighStrings(canonical.ensEventSetting())
+                        - ValueWeigher.weighStrings(canonical.dlpEventSetting());
+            }
+            return interned;
+        }
+        if (value instanceof String string) {
+            return string(string, saved);
+        }
+        return value;
+    }
+
+    private String string(String string, long[] saved) {
+        if (string == null) {
+            return null;
+        }
+        String interned = strings.intern(string);
+        if (interned != string) {
+            saved[0] += ValueWeigher.weighString(string);
+        }
+        return interned;
+    }
+
+    private List<String> list(List<String> list, long[] saved) {
+        if (list == null) {
+            return null;
+        }
+        String[] elements = new String[list.size()];
+        long elementSavings = 0;
+        int i = 0;
+        for (String element : list) {
+            if (element == null) {
+                // Immutable lists cannot hold null
+                return list;
+            }
+            elements[i] = strings.intern(element);
+            if (elements[i] != element) {
+                elementSavings += ValueWeigher.weighString(element);
+            }
+            i++;
+        }
+        List<String> canonical = List.of(elements);
+        List<String> pooled = lists.intern(canonical);
+        // A list already in the pool is shared as a whole, elements included
+        saved[0] += pooled != canonical ? ValueWeigher.weighStrings(list) : elementSavings;
+        return pooled;
+    }
+}
@@ -0,0 +1,93 @@
+package com.biswamit.cache.config;
+
+import com.biswamit.cache.key.CacheKey;
+import com.biswamit.cache.model.TenantEventSetting;
+import com.biswamit.cache.model.TenantMapper;
+import com.github.benmanes.caffeine.cache.Weigher;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.Collection;
+
+/**
+ * Estimates the retained heap, in bytes, of a cache entry so groups can be bounded by memory.
+ * The estimates assume a 64-bit JVM with compressed oops and compact (Latin-1) Strings, and
+ * understand the model records; other values fall back to a fixed estimate.
+ */
+public class ValueWeigher implements Weigher<CacheKey, Object> {
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int UNKNOWN_VALUE = 64;
+
+    @Override
+    public int weigh(@NonNull CacheKey key, @NonNull Object value) {
+        long weight = weighKey(key) + weighValue(value);
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+
+    static long weighKey(CacheKey key) {
+        if (key.isUuid()) {
+            // header + group reference + hash + two longs
+            return align(OBJECT_HEADER + REFERENCE + 4 + 16);
+        }
+        String subKey = key.subKey();
+        return align(OBJECT_HEADER + REFERENCE + 4 + REFERENCE) + (subKey == null ? 0 : weighString(subKey));
+    }
+
+    static long weighValue(Object value) {
+        if (value == NegativeEntry.INSTANCE) {
+            // The sentinel is shared
+            return 0;
+        }
+        if (value instanceof TenantMapper mapper) {
+            // Boolean.TRUE/FALSE are shared, so isActive adds no retained size
+            return align(OBJECT_HEADER + 5 * REFERENCE)
+                    + weighString(mapper.cyborgTenantId())
+                    + weighString(mapper.odsyId())
+                    + weighString(mapper.region())
+                    + weighString(mapper.helixIngestionGW());
+        }
+        if (value instanceof TenantEventSetting setting) {
+            return align(OBJECT_HEADER + 2 * REFERENCE)
+                    + weighStrings(setting.ensEventSetting())
+                    + weighStrings(setting.dlpEventSetting());
+        }
+        if (value instanceof String string) {
+            return weighString(string);
+        }
+        if (value instanceof Boolean) {
+            return 0;
+        }
+        if (value instanceof Number) {
+            return align(OBJECT_HEADER + 8);
+        }
+        if (value instanceof Collection<?> collection) {
+            return align(ARRAY_HEADER + (long) collection.size() * REFERENCE) + (long) collection.size() * UNKNOWN_VALUE;
+        }
+        return UNKNOWN_VALUE;
+    }
+
+    static long weighString(String string) {
+        if (string == null) {
+            return 0;
+        }
+        // String object (header, hash, coder, value reference) + byte[]
+        return align(OBJECT_HEADER + 4 + 1 + 1 + REFERENCE) + align(ARRAY_HEADER + string.length());
+    }
+
+    static long weighStrings(Collection<String> strings) {
+        if (strings == null) {
+            return 0;
+        }
+        long weight = align(OBJECT_HEADER + REFERENCE) + align(ARRAY_HEADER + (long) strings.size() * REFERENCE);
+        for (String string : strings) {
+            weight += weighString(string);
+        }
+        return weight;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
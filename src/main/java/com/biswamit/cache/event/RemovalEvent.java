@@ -0,0 +1,14 @@
+package com.biswamit.cache.event;
+
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+/**
+ * An entry that left the cache.
+ *
+ * @param group The group name.
+ * @param subKey The sub-key, or {@code null} for a group-only entry.
+ * @param value The value the entry held; for {@link RemovalCause#REPLACED}, the value that was replaced.
+ * @param cause Why the entry was removed.
+ */
+public record RemovalEvent(String group, String subKey, Object value, RemovalCause cause) {
+}
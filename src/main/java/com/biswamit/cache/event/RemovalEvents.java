@@ -0,0 +1,59 @@
+package com.biswamit.cache.event;
+
+import com.biswamit.cache.config.NegativeEntry;
+import com.biswamit.cache.key.CacheGroup;
+import com.biswamit.cache.key.CacheKey;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.RemovalListener;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Fans the removals of the caches out to the {@link RemovalSubscription}s of their group, acting
+ * as the caches' removal listener. Groups without subscribers cost a single map lookup per removal.
+ *
+ * Removals of negative entries are internal to the cache and are not published.
+ */
+public class RemovalEvents implements RemovalListener<CacheKey, Object> {
+
+    private final ConcurrentMap<CacheGroup, List<RemovalSubscription>> subscriptions = new ConcurrentHashMap<>();
+
+    /**
+     * Subscribes to the removals of a group.
+     *
+     * @param capacity The number of pending events beyond which the oldest are dropped.
+     * @param causes The removal causes to deliver.
+     * @throws IllegalArgumentException if the capacity is less than 1.
+     */
+    public RemovalSubscription subscribe(CacheGroup group, int capacity, Set<RemovalCause> causes) {
+        List<RemovalSubscription> groupSubscriptions = subscriptions.computeIfAbsent(group, g -> new CopyOnWriteArrayList<>());
+        RemovalSubscription subscription = new RemovalSubscription(group.name(), capacity, causes, groupSubscriptions::remove);
+        groupSubscriptions.add(subscription);
+        return subscription;
+    }
+
+    @Override
+    public void onRemoval(@Nullable CacheKey key, @Nullable Object value, RemovalCause cause) {
+        if (key == null || value == NegativeEntry.INSTANCE) {
+            return;
+        }
+        List<RemovalSubscription> groupSubscriptions = subscriptions.get(key.group());
+        if (groupSubscriptions == null) {
+            return;
+        }
+        RemovalEvent event = null;
+        for (RemovalSubscription subscription : groupSubscriptions) {
+            if (subscription.accepts(cause)) {
+                if (event == null) {
+                    event = new RemovalEvent(key.group().name(), key.subKey(), value, cause);
+                }
+                subscription.offer(event);
+            }
+        }
+    }
+}
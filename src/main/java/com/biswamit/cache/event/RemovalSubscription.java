@@ -0,0 +1,100 @@
+package com.biswamit.cache.event;
+
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * A bounded queue of the removal events of one group, filled by the caches and drained by the
+ * subscriber at its own pace.
+ *
+ * Offering an event never blocks and never waits for the subscriber: once {@code capacity} events
+ * are pending, each new event drops the oldest pending one, so a slow subscriber sees the most
+ * recent removals and can tell from {@link #droppedCount()} how many it missed.
+ */
+public class RemovalSubscription implements AutoCloseable {
+
+    private final String group;
+    private final int capacity;
+    private final Set<RemovalCause> causes;
+    private final Consumer<RemovalSubscription> onClose;
+    private final Queue<RemovalEvent> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean closed;
+
+    RemovalSubscription(String group, int capacity, Set<RemovalCause> causes, Consumer<RemovalSubscription> onClose) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1, was " + capacity);
+        }
+        this.group = group;
+        this.capacity = capacity;
+        this.causes = Set.copyOf(causes);
+        this.onClose = onClose;
+    }
+
+    public String group() {
+        return group;
+    }
+
+    boolean accepts(RemovalCause cause) {
+        return !closed && causes.contains(cause);
+    }
+
+    void offer(RemovalEvent event) {
+        pending.offer(event);
+        if (size.incrementAndGet() > capacity && pending.poll() != null) {
+            size.decrementAndGet();
+            dropped.increment();
+        }
+    }
+
+    /**
+     * @return the oldest pending event, or {@code null} if there is none.
+     */
+    public RemovalEvent poll() {
+        RemovalEvent event = pending.poll();
+        if (event != null) {
+            size.decrementAndGet();
+        }
+        return event;
+    }
+
+    /**
+     * Hands up to {@code maxEvents} pending events to the consumer, oldest first.
+     *
+     * @return the number of events handed over.
+     */
+    public int drain(Consumer<? super RemovalEvent> consumer, int maxEvents) {
+        int drained = 0;
+        RemovalEvent event;
+        while (drained < maxEvents && (event = poll()) != null) {
+            consumer.accept(event);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * @return the number of events dropped because the queue was full.
+     */
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stops the subscription; pending events can still be drained.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            onClose.accept(this);
+        }
+    }
+}
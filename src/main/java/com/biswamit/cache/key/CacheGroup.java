@@ -0,0 +1,192 @@
+package com.biswamit.cache.key;
+
+import com.biswamit.cache.config.FrequencySketch;
+import com.biswamit.cache.config.TtlRuleIndex;
+
+/**
+ * An interned cache group such as "matrix.event.setting". Groups are compared by identity and
+ * carry their TTL rules pre-resolved from the {@link TtlRuleIndex}, so the expiry policy never
+ * has to parse a key to find its group.
+ *
+ * The pre-resolved rules are tied to the rule index they came from. When the registry publishes
+ * a new index, each group re-resolves its rules on next use, so readers never take a lock and a
+ * single resolution always sees one consistent snapshot.
+ *
+ * A group with adaptive TTLs also keeps how often its keys are read and updated. These sketches
+ * are created on first use and kept across reloads, so a reload does not forget which keys are hot.
+ *
+ * Instances are created through {@link CacheGroupRegistry}.
+ */
+public final class CacheGroup {
+
+    private static final char SEPARATOR = '.';
+
+    private final String name;
+    private final int hash;
+    private final CacheGroupRegistry registry;
+    private volatile Rules rules;
+    private volatile Sketches sketches;
+
+    CacheGroup(String name, CacheGroupRegistry registry) {
+        this.name = name;
+        this.hash = name.hashCode();
+        this.registry = registry;
+        this.rules = new Rules(registry.ruleIndex(), name);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return the group-level TTL in nanoseconds, or the global default if the group has no rule.
+     */
+    public long groupNanos() {
+        return rules().groupNanos;
+    }
+
+    /**
+     * @return the percentage by which the TTLs of this group are randomly shortened, 0 for none.
+     */
+    public int jitterPercent() {
+        return rules().jitterPercent;
+    }
+
+    /**
+     * @return the stale-while-revalidate grace window of this group in nanoseconds, 0 for none.
+     */
+    public long graceNanos() {
+        return rules().graceNanos;
+    }
+
+    /**
+     * @return the TTL of negative entries of this group in nanoseconds, 0 if they are not cached.
+     */
+    public long negativeNanos() {
+        return rules().negativeNanos;
+    }
+
+    /**
+     * @return the adaptive TTL settings of this group, or {@code null} if its TTLs are fixed.
+     */
+    public TtlRuleIndex.Adaptive adaptive() {
+        return rules().adaptive;
+    }
+
+    /**
+     * @return how often the keys of this group were read recently. Only meaningful for adaptive groups.
+     */
+    public FrequencySketch reads() {
+        return sketches().reads;
+    }
+
+    /**
+     * @return how often the values of this group's keys were replaced recently. Only meaningful for adaptive groups.
+     */
+    public FrequencySketch updates() {
+        return sketches().updates;
+    }
+
+    private Sketches sketches() {
+        Sketches current = sketches;
+        if (current == null) {
+            synchronized (this) {
+                current = sketches;
+                if (current == null) {
+                    TtlRuleIndex.Adaptive adaptive = rules().adaptive;
+                    current = new Sketches(adaptive != null ? adaptive.expectedKeys() : 0);
+                    sketches = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Resolves the TTL of a key in this group: the most specific rule matching the whole key if one
+     * exists and is at least as specific as the group's rule, otherwise the group-level TTL.
+     * Does not allocate unless the rules were just reloaded.
+     */
+    public long ttlNanos(CacheKey key) {
+        return rules().ttlNanos(key);
+    }
+
+    /**
+     * Resolves the TTL of a key in this group against a specific rule index, e.g. the one that
+     * was active before a reload.
+     */
+    public long ttlNanos(CacheKey key, TtlRuleIndex ruleIndex) {
+        Rules current = rules;
+        return (current.ruleIndex == ruleIndex ? current : new Rules(ruleIndex, name)).ttlNanos(key);
+    }
+
+    private Rules rules() {
+        Rules current = rules;
+        TtlRuleIndex ruleIndex = registry.ruleIndex();
+        if (current.ruleIndex != ruleIndex) {
+            current = new Rules(ruleIndex, name);
+            rules = current;
+        }
+        return current;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static final class Sketches {
+        private final FrequencySketch reads;
+        private final FrequencySketch updates;
+
+        Sketches(int expectedKeys) {
+            this.reads = new FrequencySketch(expectedKeys);
+            this.updates = new FrequencySketch(expectedKeys);
+        }
+    }
+
+    /**
+     * The rules of one group resolved from one rule index.
+     */
+    private static final class Rules {
+        private final TtlRuleIndex ruleIndex;
+        private final long groupNanos;
+        private final long groupRank;
+        private final TtlRuleIndex.Node subKeyRoot;
+        private final int jitterPercent;
+        private final long graceNanos;
+        private final long negativeNanos;
+        private final TtlRuleIndex.Adaptive adaptive;
+
+        Rules(TtlRuleIndex ruleIndex, String name) {
+            this.ruleIndex = ruleIndex;
+            TtlRuleIndex.Node groupNode = ruleIndex.find(name);
+            boolean groupRule = groupNode != null && groupNode.nanos() != TtlRuleIndex.NO_RULE;
+            this.groupNanos = groupRule ? groupNode.nanos() : ruleIndex.defaultNanos();
+            this.groupRank = groupRule ? groupNode.rank() : TtlRuleIndex.NO_RANK;
+            this.subKeyRoot = groupNode != null ? groupNode.child(SEPARATOR) : null;
+            this.jitterPercent = ruleIndex.jitterPercent(name);
+            this.graceNanos = ruleIndex.graceNanos(name);
+            this.negativeNanos = ruleIndex.negativeNanos(name);
+            this.adaptive = ruleIndex.adaptive(name);
+        }
+
+        long ttlNanos(CacheKey key) {
+            TtlRuleIndex.Node node = subKeyRoot;
+            int length = key.subKeyLength();
+            if (node == null || length == 0) {
+                return groupNanos;
+            }
+            for (int i = 0; i < length && node != null; i++) {
+                node = node.child(TtlRuleIndex.normalize(key.subKeyCharAt(i)));
+            }
+            return node != null && node.nanos() != TtlRuleIndex.NO_RULE && node.rank() >= groupRank
+                    ? node.nanos() : groupNanos;
+        }
+    }
+}
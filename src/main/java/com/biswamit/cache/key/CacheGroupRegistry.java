@@ -0,0 +1,85 @@
+package com.biswamit.cache.key;
+
+import com.biswamit.cache.config.TtlRuleIndex;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Interns {@link CacheGroup}s and creates {@link CacheKey}s for them.
+ * Group lookups are a single concurrent map read once a group has been seen.
+ * The registry also publishes the active {@link TtlRuleIndex}, which can be swapped at runtime.
+ */
+public class CacheGroupRegistry {
+
+    private final AtomicReference<TtlRuleIndex> ruleIndex;
+    private final ConcurrentMap<String, CacheGroup> groups = new ConcurrentHashMap<>();
+    private final ThreadLocal<CacheKey.LookupKey> lookupKeys = ThreadLocal.withInitial(CacheKey.LookupKey::new);
+
+    public CacheGroupRegistry(TtlRuleIndex ruleIndex) {
+        this.ruleIndex = new AtomicReference<>(ruleIndex);
+    }
+
+    /**
+     * @return the interned group for the given name, creating it on first use.
+     */
+    public CacheGroup group(String name) {
+        CacheGroup group = groups.get(name);
+        return group != null ? group : groups.computeIfAbsent(name, n -> new CacheGroup(n, this));
+    }
+
+    /**
+     * @return the groups seen so far.
+     */
+    public Collection<CacheGroup> groups() {
+        return Collections.unmodifiableCollection(groups.values());
+    }
+
+    /**
+     * Creates an immutable key that is safe to store in the cache.
+     */
+    public CacheKey key(String groupKey, String subKey) {
+        return lookupKeys.get().set(group(groupKey), subKey).copy();
+    }
+
+    /**
+     * Creates an immutable key for a value that only has a group key.
+     */
+    public CacheKey key(String groupKey) {
+        return new CacheKey.GroupKey(group(groupKey));
+    }
+
+    /**
+     * Returns a thread-confined key for reads. The returned instance is reused by the next call on
+     * the same thread, so it must only be used to probe the cache and never stored.
+     */
+    public CacheKey lookupKey(String groupKey, String subKey) {
+        return lookupKeys.get().set(group(groupKey), subKey);
+    }
+
+    /**
+     * Returns a thread-confined key for reads in an already resolved group, see {@link #lookupKey(String, String)}.
+     */
+    public CacheKey lookupKey(CacheGroup group, String subKey) {
+        return lookupKeys.get().set(group, subKey);
+    }
+
+    /**
+     * @return the active rule index.
+     */
+    public TtlRuleIndex ruleIndex() {
+        return ruleIndex.get();
+    }
+
+    /**
+     * Atomically publishes a new rule index. Groups pick it up on their next TTL resolution.
+     *
+     * @return the previously active rule index.
+     */
+    public TtlRuleIndex reload(TtlRuleIndex newRuleIndex) {
+        return ruleIndex.getAndSet(newRuleIndex);
+    }
+}
@@ -0,0 +1,340 @@
+package com.biswamit.cache.key;
+
+/**
+ * A structured cache key made of an interned {@link CacheGroup} reference and an optional sub-key.
+ * Sub-keys in canonical lower-case UUID form (as tenant ids are) are stored as two longs instead of
+ * a 36-char String. The hash code is computed once at construction.
+ *
+ * Instances are created through {@link CacheGroupRegistry}.
+ */
+public abstract class CacheKey {
+
+    static final int GROUP_ONLY = 0;
+    static final int STRING = 1;
+    static final int UUID = 2;
+
+    private static final char DELIMITER = ':';
+    private static final int UUID_LENGTH = 36;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    CacheKey() {
+    }
+
+    /**
+     * @return the interned group this key belongs to.
+     */
+    public abstract CacheGroup group();
+
+    /**
+     * @return the sub-key, or {@code null} if this key only has a group. UUID-encoded sub-keys
+     * are rendered back to their canonical String form, which allocates.
+     */
+    public String subKey() {
+        int kind = kind();
+        if (kind == GROUP_ONLY) {
+            return null;
+        }
+        if (kind == STRING) {
+            return stringSubKey();
+        }
+        char[] chars = new char[UUID_LENGTH];
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            chars[i] = subKeyCharAt(i);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @return the length of the sub-key in characters, or 0 for a group-only key.
+     */
+    public int subKeyLength() {
+        int kind = kind();
+        if (kind == GROUP_ONLY) {
+            return 0;
+        }
+        return kind == STRING ? stringSubKey().length() : UUID_LENGTH;
+    }
+
+    /**
+     * Returns a character of the sub-key without materialising it as a String.
+     */
+    public char subKeyCharAt(int index) {
+        if (kind() == STRING) {
+            return stringSubKey().charAt(index);
+        }
+        if (index == 8 || index == 13 || index == 18 || index == 23) {
+            return '-';
+        }
+        int nibble = index < 8 ? index : index < 13 ? index - 1 : index < 18 ? index - 2 : index < 23 ? index - 3 : index - 4;
+        long bits = nibble < 16 ? msb() : lsb();
+        int shift = (15 - (nibble & 15)) * 4;
+        return HEX_DIGITS[(int) (bits >>> shift) & 0xF];
+    }
+
+    /**
+     * @return {@code true} if the sub-key is stored in its compact UUID form.
+     */
+    public boolean isUuid() {
+        return kind() == UUID;
+    }
+
+    abstract int kind();
+
+    String stringSubKey() {
+        return null;
+    }
+
+    long msb() {
+        return 0L;
+    }
+
+    long lsb() {
+        return 0L;
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CacheKey other)) {
+            return false;
+        }
+        if (hashCode() != other.hashCode() || group() != other.group() || kind() != other.kind()) {
+            return false;
+        }
+        return switch (kind()) {
+            case STRING -> stringSubKey().equals(other.stringSubKey());
+            case UUID -> msb() == other.msb() && lsb() == other.lsb();
+            default -> true;
+        };
+    }
+
+    @Override
+    public abstract int hashCode();
+
+    @Override
+    public String toString() {
+        String subKey = subKey();
+        return subKey == null ? group().name() : group().name() + DELIMITER + subKey;
+    }
+
+    static int hash(CacheGroup group) {
+        return group.hashCode();
+    }
+
+    static int hash(CacheGroup group, String subKey) {
+        return 31 * group.hashCode() + subKey.hashCode();
+    }
+
+    static int hash(CacheGroup group, long msb, long lsb) {
+        return 31 * group.hashCode() + Long.hashCode(msb ^ lsb);
+    }
+
+    /**
+     * Parses a canonical lower-case UUID String into the given two-element array without allocating.
+     *
+     * @return {@code true} if the sub-key is a canonical UUID and {@code bits} was filled in.
+     */
+    static boolean parseUuid(String subKey, long[] bits) {
+        if (subKey.length() != UUID_LENGTH) {
+            return false;
+        }
+        long msb = 0L;
+        long lsb = 0L;
+        int nibble = 0;
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            char c = subKey.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+                continue;
+            }
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (c >= 'a' && c <= 'f') {
+                digit = c - 'a' + 10;
+            } else {
+                return false;
+            }
+            if (nibble < 16) {
+                msb = (msb << 4) | digit;
+            } else {
+                lsb = (lsb << 4) | digit;
+            }
+            nibble++;
+        }
+        bits[0] = msb;
+        bits[1] = lsb;
+        return true;
+    }
+
+    static final class GroupKey extends CacheKey {
+        private final CacheGroup group;
+        private final int hash;
+
+        GroupKey(CacheGroup group) {
+            this.group = group;
+            this.hash = hash(group);
+        }
+
+        @Override
+        public CacheGroup group() {
+            return group;
+        }
+
+        @Override
+        int kind() {
+            return GROUP_ONLY;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    static final class StringKey extends CacheKey {
+        private final CacheGroup group;
+        private final String subKey;
+        private final int hash;
+
+        StringKey(CacheGroup group, String subKey) {
+            this.group = group;
+            this.subKey = subKey;
+            this.hash = hash(group, subKey);
+        }
+
+        @Override
+        public CacheGroup group() {
+            return group;
+        }
+
+        @Override
+        int kind() {
+            return STRING;
+        }
+
+        @Override
+        String stringSubKey() {
+            return subKey;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    static final class UuidKey extends CacheKey {
+        private final CacheGroup group;
+        private final long msb;
+        private final long lsb;
+        private final int hash;
+
+        UuidKey(CacheGroup group, long msb, long lsb) {
+            this.group = group;
+            this.msb = msb;
+            this.lsb = lsb;
+            this.hash = hash(group, msb, lsb);
+        }
+
+        @Override
+        public CacheGroup group() {
+            return group;
+        }
+
+        @Override
+        int kind() {
+            return UUID;
+        }
+
+        @Override
+        long msb() {
+            return msb;
+        }
+
+        @Override
+        long lsb() {
+            return lsb;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * A mutable, thread-confined key used only to probe the cache on reads so lookups do not
+     * allocate. It must never be stored in the cache.
+     */
+    static final class LookupKey extends CacheKey {
+        private final long[] bits = new long[2];
+        private CacheGroup group;
+        private String subKey;
+        private int kind;
+        private int hash;
+
+        LookupKey set(CacheGroup group, String subKey) {
+            this.group = group;
+            if (subKey == null) {
+                this.subKey = null;
+                this.kind = GROUP_ONLY;
+                this.hash = hash(group);
+            } else if (parseUuid(subKey, bits)) {
+                this.subKey = null;
+                this.kind = UUID;
+                this.hash = hash(group, bits[0], bits[1]);
+            } else {
+                this.subKey = subKey;
+                this.kind = STRING;
+                this.hash = hash(group, subKey);
+            }
+            return this;
+        }
+
+        /**
+         * @return an immutable copy that is safe to store in the cache.
+         */
+        CacheKey copy() {
+            return switch (kind) {
+                case STRING -> new StringKey(group, subKey);
+                case UUID -> new UuidKey(group, bits[0], bits[1]);
+                default -> new GroupKey(group);
+            };
+        }
+
+        @Override
+        public CacheGroup group() {
+            return group;
+        }
+
+        @Override
+        int kind() {
+            return kind;
+        }
+
+        @Override
+        String stringSubKey() {
+            return subKey;
+        }
+
+        @Override
+        long msb() {
+            return bits[0];
+        }
+
+        @Override
+        long lsb() {
+            return bits[1];
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
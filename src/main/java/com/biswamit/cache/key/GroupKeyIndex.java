@@ -0,0 +1,86 @@
+package com.biswamit.cache.key;
+
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.RemovalListener;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+
+/**
+ * A concurrent secondary index from each {@link CacheGroup} to the keys cached under it, so a
+ * whole group can be invalidated in O(entries in the group) instead of scanning the cache.
+ *
+ * Keys are added by the writer after they are stored, and removed by this class acting as the
+ * cache's removal listener. Both sides re-check the cache after changing the index: an add whose
+ * entry was already removed undoes itself, and a removal that races with a re-insert of the same
+ * key puts it back. So the index may briefly hold a key that is gone but never misses a live one,
+ * and never keeps a dead one.
+ */
+public class GroupKeyIndex implements RemovalListener<CacheKey, Object> {
+
+    private final ConcurrentMap<CacheGroup, Set<CacheKey>> keysByGroup = new ConcurrentHashMap<>();
+    private volatile Predicate<CacheKey> isCached;
+
+    /**
+     * Binds the index to the cache it tracks, so removals can be re-checked against it.
+     *
+     * @param isCached Tells whether a key currently has an entry in the cache.
+     */
+    public void attach(Predicate<CacheKey> isCached) {
+        this.isCached = isCached;
+    }
+
+    /**
+     * Records a key that has just been stored in the cache. If the entry was removed before this
+     * call, its removal notification may already have run, so the key is dropped again.
+     */
+    public void add(CacheKey key) {
+        Set<CacheKey> keys = keysByGroup.get(key.group());
+        if (keys == null) {
+            keys = keysByGroup.computeIfAbsent(key.group(), group -> ConcurrentHashMap.newKeySet());
+        }
+        if (!keys.add(key)) {
+            return;
+        }
+        Predicate<CacheKey> cached = isCached;
+        if (cached != null && !cached.test(key)) {
+            keys.remove(key);
+            if (cached.test(key)) {
+                // Re-inserted while undoing, keep it indexed
+                keys.add(key);
+            }
+        }
+    }
+
+    public void remove(CacheKey key) {
+        Set<CacheKey> keys = keysByGroup.get(key.group());
+        if (keys != null) {
+            keys.remove(key);
+        }
+    }
+
+    /**
+     * @return a live, unmodifiable view of the keys indexed under the group.
+     */
+    public Set<CacheKey> keys(CacheGroup group) {
+        Set<CacheKey> keys = keysByGroup.get(group);
+        return keys == null ? Collections.emptySet() : Collections.unmodifiableSet(keys);
+    }
+
+    @Override
+    public void onRemoval(@Nullable CacheKey key, @Nullable Object value, RemovalCause cause) {
+        if (key == null || cause == RemovalCause.REPLACED) {
+            return;
+        }
+        remove(key);
+        Predicate<CacheKey> cached = isCached;
+        if (cached != null && cached.test(key)) {
+            // Re-inserted after this removal, keep it indexed
+            add(key);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.biswamit.cache.service;
+
+import com.biswamit.cache.key.CacheGroup;
+import com.biswamit.cache.key.CacheGroupRegistry;
+import com.biswamit.cache.key.CacheKey;
+import com.github.benmanes.caffeine.cache.Cache;
+
+/**
+ * A typed view of one cache group, handed out by {@link TimeExpiringCacheService#region(String, Class)}.
+ *
+ * Each region is backed by its group's own Caffeine instance, resolved once when the region is
+ * built, so its reads skip the group lookup and never share expiry or eviction structures with
+ * other groups. {@link #getOrNull(String)} probes with a thread-confined key and returns the value
+ * directly, so a hit does not allocate. Writes and invalidations go through the service and are
+ * published, tiered and indexed exactly like those of the untyped API.
+ *
+ * @param <T> The type of the values in the group.
+ */
+public final class CacheRegion<T> {
+
+    private final TimeExpiringCacheService service;
+    private final CacheGroupRegistry groupRegistry;
+    private final CacheGroup group;
+    private final Class<T> type;
+    private final Cache<CacheKey, Object> cache;
+
+    CacheRegion(TimeExpiringCacheService service, CacheGroupRegistry groupRegistry, CacheGroup group, Class<T> type,
+                Cache<CacheKey, Object> cache) {
+        this.service = service;
+        this.groupRegistry = groupRegistry;
+        this.group = group;
+        this.type = type;
+        this.cache = cache;
+    }
+
+    public String name() {
+        return group.name();
+    }
+
+    public Class<T> type() {
+        return type;
+    }
+
+    /**
+     * Reads a value without loading it.
+     *
+     * @param subKey The specific identifier, or {@code null} for a group-only entry.
+     * @return the value, or {@code null} if it is absent, expired or not of the region's type.
+     */
+    public T getOrNull(String subKey) {
+        Object value = service.getIfPresent(cache, groupRegistry.lookupKey(group, subKey), service.loaderFor(group));
+        return TimeExpiringCacheService.typed(value, type);
+    }
+
+    /**
+     * Reads a value, loading it with the given loader on a miss. Concurrent misses for the same
+     * key share a single load.
+     *
+     * @return the value, or {@code null} if the loader returned none.
+     */
+    public T get(String subKey, GroupLoader<? extends T> loader) {
+        Object value = service.getIfPresent(cache, groupRegistry.lookupKey(group, subKey), loader);
+        if (value == null) {
+            value = service.load(group.name(), subKey, loader);
+        }
+        return TimeExpiringCacheService.typed(value, type);
+    }
+
+    public void put(String subKey, T value) {
+        service.put(group.name(), subKey, type.cast(value));
+    }
+
+    public void invalidate(String subKey) {
+        service.invalidate(group.name(), subKey);
+    }
+
+    public void invalidateAll() {
+        service.invalidateGroup(group.name());
+    }
+}
@@ -0,0 +1,44 @@
+package com.biswamit.cache.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads the value for a sub-key of a cache group from its backing service on a cache miss.
+ *
+ * @param <T> The type of value produced for the group.
+ */
+@FunctionalInterface
+public interface GroupLoader<T> {
+
+    /**
+     * Loads the value for the given sub-key.
+     *
+     * @param subKey The specific identifier, e.g., a tenant ID.
+     * @return The value to cache, or {@code null} if there is none (nothing is cached, unless the
+     *         group has a negative TTL, in which case the absence is cached for that long).
+     * @throws Exception if the value could not be loaded; the failure is propagated to the caller.
+     */
+    T load(String subKey) throws Exception;
+
+    /**
+     * Loads the values for several sub-keys of the group in a single backend call.
+     * The default implementation calls {@link #load(String)} for each sub-key; loaders backed by
+     * a bulk API should override it.
+     *
+     * @param subKeys The sub-keys that missed in the cache.
+     * @return The loaded values by sub-key. Sub-keys without a value may be left out.
+     * @throws Exception if the values could not be loaded; the failure is propagated to the caller.
+     */
+    default Map<String, T> loadAll(Set<String> subKeys) throws Exception {
+        Map<String, T> values = new HashMap<>();
+        for (String subKey : subKeys) {
+            T value = load(subKey);
+            if (value != null) {
+                values.put(subKey, value);
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,203 @@
+package com.biswamit.cache.service;
+
+import com.biswamit.cache.key.CacheGroup;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Gathers the single-key misses of a group from many threads into one bulk load.
+ *
+ * The first miss for a loader opens a batch; misses arriving within {@code window} join it, and
+ * the batch is sent as a single {@link GroupLoader#loadAll(Set)} call once the window ends or
+ * {@code maxKeys} sub-keys are waiting, whichever comes first. Each caller blocks until the bulk
+ * load has finished and then gets its own value, or the failure of the whole batch, but for no
+ * longer than {@code timeout}. A batch that cannot be sent because the executor rejects it fails
+ * with the rejection, and a bulk load returning {@code null} counts as returning no values. Callers that
+ * run on the executor itself, such as background refreshes, must use {@link #loadAsync} instead:
+ * a task blocked on a batch would hold a worker the batch may need to run.
+ *
+ * Batches are kept per loader instance, since two loaders of one group may read different backends.
+ */
+public class LoadCoalescer {
+
+    private final Set<String> groups;
+    private final long windowNanos;
+    private final int maxKeys;
+    private final long timeoutNanos;
+    private final Executor executor;
+    private final ConcurrentMap<GroupLoader<?>, Batch> open = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService timer;
+    private volatile boolean stopped;
+
+    /**
+     * @param groups The groups whose misses are coalesced.
+     * @param window The longest time a miss waits for others to join its batch.
+     * @param maxKeys The number of sub-keys that sends a batch before the window ends.
+     * @param timeout The longest time {@link #load} waits for the batch to be loaded.
+     * @param executor Runs the bulk loads.
+     */
+    public LoadCoalescer(Set<String> groups, Duration window, int maxKeys, Duration timeout, Executor executor) {
+        this.groups = Set.copyOf(groups);
+        this.windowNanos = window != null ? window.toNanos() : 0;
+        this.maxKeys = maxKeys;
+        this.timeoutNanos = timeout != null ? timeout.toNanos() : Long.MAX_VALUE;
+        this.executor = executor;
+    }
+
+    /**
+     * @return a coalescer that covers no group.
+     */
+    public static LoadCoalescer disabled() {
+        return new LoadCoalescer(Set.of(), null, 0, null, Runnable::run);
+    }
+
+    /**
+     * @return whether misses of the group are coalesced: it is configured and the coalescer is running.
+     */
+    public boolean covers(CacheGroup group) {
+        return timer != null && !stopped && groups.contains(group.name());
+    }
+
+    public void start() {
+        if (groups.isEmpty()) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-load-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void stop() {
+        if (timer == null) {
+            return;
+        }
+        stopped = true;
+        timer.shutdown();
+        // Callers still waiting get their batch sent right away
+        open.values().forEach(this::send);
+    }
+
+    /**
+     * Loads a sub-key as part of the loader's current batch, waiting for the batch to be loaded.
+     *
+     * @return the value, or {@code null} if the bulk load returned none for the sub-key.
+     * @throws Exception if the bulk load failed, or a {@link TimeoutException} if it did not finish in time.
+     */
+    public Object load(GroupLoader<?> loader, String subKey) throws Exception {
+        try {
+            return loadAsync(loader, subKey).get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    /**
+     * Adds a sub-key to the loader's current batch without waiting for it.
+     *
+     * @return the value once the batch is loaded, {@code null} if the bulk load returned none for
+     *         the sub-key, or the failure of the bulk load.
+     */
+    public CompletableFuture<Object> loadAsync(GroupLoader<?> loader, String subKey) {
+        CompletableFuture<Object> result;
+        Batch batch;
+        while (true) {
+            batch = open.computeIfAbsent(loader, this::openBatch);
+            result = batch.join(subKey);
+            if (result != null) {
+                break;
+            }
+            // The batch was sent meanwhile
+            open.remove(loader, batch);
+        }
+        if (batch.size() >= maxKeys || stopped) {
+            // Past stop() no timer sends the batch
+            send(batch);
+        }
+        // Callers of one sub-key share the result, so none of them may complete it
+        return result.copy();
+    }
+
+    private Batch openBatch(GroupLoader<?> loader) {
+        Batch batch = new Batch(loader);
+        try {
+            timer.schedule(() -> send(batch), windowNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // Stopped after the caller checked covers(); the caller sends the batch itself
+        }
+        return batch;
+    }
+
+    private void send(Batch batch) {
+        open.remove(batch.loader, batch);
+        Map<String, CompletableFuture<Object>> waiting = batch.close();
+        if (waiting == null) {
+            return;
+        }
+        try {
+            executor.execute(() -> batch.complete(waiting));
+        } catch (RejectedExecutionException e) {
+            Batch.fail(waiting, e);
+        }
+    }
+
+    private static final class Batch {
+        private final GroupLoader<?> loader;
+        private Map<String, CompletableFuture<Object>> waiting = new HashMap<>();
+
+        Batch(GroupLoader<?> loader) {
+            this.loader = loader;
+        }
+
+        /**
+         * @return the result of the sub-key, or {@code null} if the batch is already closed.
+         */
+        synchronized CompletableFuture<Object> join(String subKey) {
+            return waiting != null ? waiting.computeIfAbsent(subKey, k -> new CompletableFuture<>()) : null;
+        }
+
+        synchronized int size() {
+            return waiting != null ? waiting.size() : 0;
+        }
+
+        /**
+         * @return the waiting sub-keys, or {@code null} if the batch was already closed.
+         */
+        synchronized Map<String, CompletableFuture<Object>> close() {
+            Map<String, CompletableFuture<Object>> closed = waiting;
+            waiting = null;
+            return closed;
+        }
+
+        void complete(Map<String, CompletableFuture<Object>> waiting) {
+            try {
+                Map<String, ?> loaded = loader.loadAll(waiting.keySet());
+                Map<String, ?> values = loaded != null ? loaded : Map.of();
+                waiting.forEach((subKey, result) -> result.complete(values.get(subKey)));
+            } catch (Throwable e) {
+                fail(waiting, e);
+            }
+        }
+
+        /**
+         * Fails the sub-keys that are still waiting; those already completed keep their value.
+         */
+        static void fail(Map<String, CompletableFuture<Object>> waiting, Throwable failure) {
+            waiting.values().forEach(result -> result.completeExceptionally(failure));
+        }
+    }
+}
@@ -1,22 +1,113 @@
 package com.biswamit.cache.service;
+import com.biswamit.cache.bus.InvalidationBus;
+import com.biswamit.cache.bus.InvalidationEvent;
+import com.biswamit.cache.config.CacheSegments;
+import com.biswamit.cache.config.NegativeEntry;
+import com.biswamit.cache.config.ValueCanonicalizer;
+import com.biswamit.cache.event.RemovalEvents;
+import com.biswamit.cache.event.RemovalSubscription;
+import com.biswamit.cache.key.CacheGroupRegistry;
+import com.biswamit.cache.key.CacheKey;
+import com.biswamit.cache.key.CacheGroup;
+import com.biswamit.cache.key.GroupKeyIndex;
+import com.biswamit.cache.stats.CacheStatistics;
+import com.biswamit.cache.stats.GroupStats;
+import com.biswamit.cache.tier.OffHeapStore;
+import com.biswamit.cache.tier.OffHeapTier;
 import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 /**
  * A service layer that provides a clean, business-oriented API for the cache.
- * It encapsulates the logic of creating and parsing composite keys, hiding
+ * It encapsulates the creation of structured {@link CacheKey}s, hiding
  * the implementation detail from the rest of the application.
+ *
+ * Misses can be loaded through a {@link GroupLoader}, either passed per call or registered
+ * per group. Loads go through Caffeine's atomic compute, so each key has at most one load in
+ * flight and concurrent callers for the same key wait for that load instead of hitting the backend.
+ *
+ * Groups covered by the {@link OffHeapTier} look there before loading: an entry found off-heap is
+ * promoted back with its remaining TTL and counted as a hit.
+ *
+ * Groups with a stale-while-revalidate grace window keep serving an entry for that long after
+ * its TTL, as long as a loader is available to replace it: the stale value is returned at once
+ * and a single background load per key refreshes it, so callers never block on it.
+ *
+ * Groups with a negative TTL remember that a loader found no value: a {@link NegativeEntry} is
+ * cached for that long instead, so repeated lookups of a missing key do not reach the backend.
+ * Callers never see it, they get an empty result as for any other absent value, and a put
+ * replaces it straight away.
+ *
+ * Background refreshes run on the configured load executor. Groups covered by the
+ * {@link LoadCoalescer} gather the single-key misses of many callers into one bulk load.
+ *
+ * Values stored in the groups covered by the {@link ValueCanonicalizer}, whether put or loaded,
+ * share equal components with the values already cached.
+ *
+ * Removals can be followed per group through a {@link RemovalSubscription}, a bounded queue that
+ * drops its oldest events rather than ever holding up the cache.
+ *
+ * Writes and invalidations are published on the {@link InvalidationBus}, so other nodes drop
+ * their copies of the changed entries; changes received from other nodes are applied locally.
  */
 @Service
 public class TimeExpiringCacheService {
 
-    private final Cache<String, Object> cache;
-    private static final char DELIMITER = ':';
+    private static final Logger logger = LoggerFactory.getLogger(TimeExpiringCacheService.class);
 
-    public TimeExpiringCacheService(Cache<String, Object> cache) {
-        this.cache = cache;
+    private final CacheSegments segments;
+    private final CacheGroupRegistry groupRegistry;
+    private final GroupKeyIndex groupKeyIndex;
+    private final CacheStatistics statistics;
+    private final OffHeapTier offHeapTier;
+    private final InvalidationBus invalidationBus;
+    private final Executor loadExecutor;
+    private final LoadCoalescer loadCoalescer;
+    private final RemovalEvents removalEvents;
+    private final ValueCanonicalizer valueCanonicalizer;
+    private final ConcurrentMap<CacheGroup, GroupLoader<?>> loaders = new ConcurrentHashMap<>();
+    private final ConcurrentMap<CacheGroup, CacheRegion<?>> regions = new ConcurrentHashMap<>();
+    private final Set<CacheKey> refreshing = ConcurrentHashMap.newKeySet();
+
+    public TimeExpiringCacheService(CacheSegments segments, CacheGroupRegistry groupRegistry,
+                                    GroupKeyIndex groupKeyIndex, CacheStatistics statistics,
+                                    OffHeapTier offHeapTier, InvalidationBus invalidationBus,
+                                    Executor cacheLoadExecutor, LoadCoalescer loadCoalescer,
+                                    RemovalEvents removalEvents, ValueCanonicalizer valueCanonicalizer) {
+        this.segments = segments;
+        this.groupRegistry = groupRegistry;
+        this.groupKeyIndex = groupKeyIndex;
+        this.statistics = statistics;
+        this.offHeapTier = offHeapTier;
+        this.invalidationBus = invalidationBus;
+        this.loadExecutor = cacheLoadExecutor;
+        this.loadCoalescer = loadCoalescer;
+        this.removalEvents = removalEvents;
+        this.valueCanonicalizer = valueCanonicalizer;
+        groupKeyIndex.attach(segments::contains);
+        invalidationBus.attach(this::apply);
     }
 
     /**
@@ -27,8 +118,11 @@ public class TimeExpiringCacheService {
      * @param value The object to cache.
      */
     public void put(String groupKey, String subKey, Object value) {
-        String compositeKey = groupKey + DELIMITER + subKey;
-        cache.put(compositeKey, value);
+        CacheKey key = groupRegistry.key(groupKey, subKey);
+        cacheFor(key).put(key, valueCanonicalizer.canonicalize(key.group(), value));
+        groupKeyIndex.add(key);
+        offHeapTier.discard(key);
+        invalidationBus.publish(InvalidationEvent.key(groupKey, subKey));
     }
 
     /**
@@ -38,7 +132,11 @@ public class TimeExpiringCacheService {
      * @param value The object to cache.
      */
     public void put(String groupKey, Object value) {
-        cache.put(groupKey, value);
+        CacheKey key = groupRegistry.key(groupKey);
+        cacheFor(key).put(key, valueCanonicalizer.canonicalize(key.group(), value));
+        groupKeyIndex.add(key);
+        offHeapTier.discard(key);
+        invalidationBus.publish(InvalidationEvent.key(groupKey, null));
     }
 
     /**
@@ -50,22 +148,513 @@ public class TimeExpiringCacheService {
      * @return An Optional containing the value if present and of the correct type, otherwise empty.
      */
     public <T> Optional<T> get(String groupKey, String subKey, Class<T> type) {
-        String compositeKey = groupKey + DELIMITER + subKey;
-        Object value = cache.getIfPresent(compositeKey);
-        if (type.isInstance(value)) {
-            return Optional.of(type.cast(value));
+        CacheKey lookupKey = groupRegistry.lookupKey(groupKey, subKey);
+        GroupLoader<?> loader = loaders.get(lookupKey.group());
+        Object value = getIfPresent(lookupKey, loader);
+        if (value == null && loader != null) {
+            value = load(groupKey, subKey, loader);
+        }
+        return Optional.ofNullable(typed(value, type));
+    }
+
+    /**
+     * Retrieves a value from the cache, loading it with the given loader on a miss.
+     * Concurrent misses for the same key share a single load.
+     *
+     * @param groupKey The main key.
+     * @param subKey The specific identifier.
+     * @param type The class of the object to cast to.
+     * @param loader Loads the value if it is absent or expired.
+     * @return An Optional containing the value if present or loaded and of the correct type, otherwise empty.
+     * @throws CompletionException if the loader threw a checked exception.
+     */
+    public <T> Optional<T> get(String groupKey, String subKey, Class<T> type, GroupLoader<? extends T> loader) {
+        CacheKey lookupKey = groupRegistry.lookupKey(groupKey, subKey);
+        Object value = getIfPresent(lookupKey, loader);
+        if (value == null) {
+            value = load(groupKey, subKey, loader);
         }
-        return Optional.empty();
+        return Optional.ofNullable(typed(value, type));
     }
 
     /**
      * Retrieves a value from the cache that only has a group key.
      */
     public <T> Optional<T> get(String groupKey, Class<T> type) {
-        Object value = cache.getIfPresent(groupKey);
-        if (type.isInstance(value)) {
-            return Optional.of(type.cast(value));
+        Object value = getIfPresent(groupRegistry.lookupKey(groupKey, null), null);
+        return Optional.ofNullable(typed(value, type));
+    }
+
+    /**
+     * Puts several values of one group into the cache.
+     *
+     * @param groupKey The main key, e.g., "matrix.event.setting".
+     * @param values The objects to cache by sub-key.
+     */
+    public void putAll(String groupKey, Map<String, ?> values) {
+        CacheGroup group = groupRegistry.group(groupKey);
+        Map<CacheKey, Object> entries = new HashMap<>();
+        for (Map.Entry<String, ?> entry : values.entrySet()) {
+            entries.put(groupRegistry.key(groupKey, entry.getKey()), valueCanonicalizer.canonicalize(group, entry.getValue()));
+        }
+        segments.cacheFor(group).putAll(entries);
+        entries.keySet().forEach(groupKeyIndex::add);
+        entries.keySet().forEach(offHeapTier::discard);
+        for (String subKey : values.keySet()) {
+            invalidationBus.publish(InvalidationEvent.key(groupKey, subKey));
+        }
+    }
+
+    /**
+     * Retrieves several values of one group. If a loader is registered for the group, all misses
+     * are loaded with a single call to {@link GroupLoader#loadAll(java.util.Set)}.
+     *
+     * @param groupKey The main key.
+     * @param subKeys The specific identifiers.
+     * @param type The class of the objects to cast to.
+     * @return The present or loaded values of the correct type by sub-key, in request order.
+     */
+    public <T> Map<String, T> getAll(String groupKey, Collection<String> subKeys, Class<T> type) {
+        return readAll(groupKey, subKeys, type, loaders.get(groupRegistry.group(groupKey)));
+    }
+
+    /**
+     * Retrieves several values of one group, loading all misses with a single call to
+     * {@link GroupLoader#loadAll(java.util.Set)}.
+     *
+     * @param groupKey The main key.
+     * @param subKeys The specific identifiers.
+     * @param type The class of the objects to cast to.
+     * @param loader Loads the values that are absent or expired, or {@code null} to only read.
+     * @return The present or loaded values of the correct type by sub-key, in request order.
+     * @throws CompletionException if the loader threw a checked exception.
+     */
+    public <T> Map<String, T> getAll(String groupKey, Collection<String> subKeys, Class<T> type,
+                                     GroupLoader<? extends T> loader) {
+        return readAll(groupKey, subKeys, type, loader);
+    }
+
+    /**
+     * Invalidates a single entry.
+     *
+     * @param groupKey The main key.
+     * @param subKey The specific identifier, or {@code null} for a group-only entry.
+     */
+    public void invalidate(String groupKey, String subKey) {
+        invalidateLocally(groupRegistry.key(groupKey, subKey));
+        invalidationBus.publish(InvalidationEvent.key(groupKey, subKey));
+    }
+
+    /**
+     * Invalidates every entry of a group. The cost is proportional to the number of entries in the
+     * group, not to the size of the cache.
+     *
+     * @param groupKey The main key, e.g., "matrix.event.setting".
+     */
+    public void invalidateGroup(String groupKey) {
+        invalidateGroupLocally(groupRegistry.group(groupKey), subKey -> true);
+        invalidationBus.publish(InvalidationEvent.group(groupKey));
+    }
+
+    /**
+     * Invalidates the entries of a group whose sub-key matches the predicate.
+     *
+     * @param groupKey The main key, e.g., "matrix.event.setting".
+     * @param subKeyFilter Selects the sub-keys to invalidate; receives {@code null} for a group-only entry.
+     */
+    public void invalidateGroup(String groupKey, Predicate<String> subKeyFilter) {
+        for (CacheKey key : invalidateGroupLocally(groupRegistry.group(groupKey), subKeyFilter)) {
+            invalidationBus.publish(InvalidationEvent.key(groupKey, key.subKey()));
+        }
+    }
+
+    /**
+     * Returns the typed region of a group, building it and its dedicated cache on first use.
+     * Entries the group already holds are moved into the dedicated cache.
+     *
+     * @param groupKey The main key, e.g., "odyssey.tenant.mapper".
+     * @param type The class of the values in the group.
+     * @throws IllegalArgumentException if the region was already requested with another type.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CacheRegion<T> region(String groupKey, Class<T> type) {
+        CacheGroup group = groupRegistry.group(groupKey);
+        CacheRegion<?> region = regions.get(group);
+        if (region == null) {
+            region = regions.computeIfAbsent(group,
+                    g -> new CacheRegion<>(this, groupRegistry, g, type, segments.dedicate(g, groupKeyIndex.keys(g))));
+        }
+        if (region.type() != type) {
+            throw new IllegalArgumentException("Region '" + groupKey + "' holds " + region.type().getName()
+                    + ", not " + type.getName());
+        }
+        return (CacheRegion<T>) region;
+    }
+
+    /**
+     * Subscribes to the entries of a group leaving the cache, e.g. to react when a tenant's settings
+     * expire. Expired entries are removed shortly after their deadline even if the group is not
+     * accessed. The caches never wait for the subscriber: once {@code capacity} events are pending,
+     * the oldest are dropped.
+     *
+     * @param groupKey The main key, e.g., "matrix.event.setting".
+     * @param capacity The number of pending events to keep.
+     * @param causes The removal causes to deliver, e.g. {@link RemovalCause#EXPIRED}.
+     * @return the subscription; close it to stop receiving events.
+     * @throws IllegalArgumentException if the capacity is less than 1.
+     */
+    public RemovalSubscription subscribeRemovals(String groupKey, int capacity, Set<RemovalCause> causes) {
+        return removalEvents.subscribe(groupRegistry.group(groupKey), capacity, causes);
+    }
+
+    /**
+     * Registers the loader used by {@link #get(String, String, Class)} to fill misses in a group.
+     * Replaces any loader previously registered for the group.
+     */
+    public void registerLoader(String groupKey, GroupLoader<?> loader) {
+        loaders.put(groupRegistry.group(groupKey), loader);
+    }
+
+    /**
+     * Removes the loader registered for a group, if any.
+     */
+    public void unregisterLoader(String groupKey) {
+        loaders.remove(groupRegistry.group(groupKey));
+    }
+
+    private void invalidateLocally(CacheKey key) {
+        groupKeyIndex.remove(key);
+        cacheFor(key).invalidate(key);
+        offHeapTier.discard(key);
+    }
+
+    /**
+     * @return the invalidated keys of the group.
+     */
+    private List<CacheKey> invalidateGroupLocally(CacheGroup group, Predicate<String> subKeyFilter) {
+        Cache<CacheKey, Object> cache = segments.cacheFor(group);
+        List<CacheKey> invalidated = new ArrayList<>();
+        for (CacheKey key : groupKeyIndex.keys(group)) {
+            if (subKeyFilter.test(key.subKey())) {
+                groupKeyIndex.remove(key);
+                cache.invalidate(key);
+                invalidated.add(key);
+            }
+        }
+        offHeapTier.discardAll(group, subKeyFilter);
+        return invalidated;
+    }
+
+    /**
+     * Applies a change received from another node.
+     */
+    private void apply(InvalidationEvent event) {
+        if (event.type() == InvalidationEvent.Type.GROUP) {
+            invalidateGroupLocally(groupRegistry.group(event.group()), subKey -> true);
+        } else {
+            invalidateLocally(groupRegistry.key(event.group(), event.subKey()));
+        }
+    }
+
+    private Cache<CacheKey, Object> cacheFor(CacheKey key) {
+        return segments.cacheFor(key.group());
+    }
+
+    GroupLoader<?> loaderFor(CacheGroup group) {
+        return loaders.get(group);
+    }
+
+    private Object getIfPresent(CacheKey lookupKey, GroupLoader<?> loader) {
+        return getIfPresent(cacheFor(lookupKey), lookupKey, loader);
+    }
+
+    /**
+     * Reads a value, treating a stale value as present only if the loader can refresh it.
+     */
+    Object getIfPresent(Cache<CacheKey, Object> cache, CacheKey lookupKey, GroupLoader<?> loader) {
+        Object value = cache.getIfPresent(lookupKey);
+        if (value == NegativeEntry.INSTANCE) {
+            statistics.forGroup(lookupKey.group()).recordNegativeHits(1);
+            return value;
+        }
+        if (value == null) {
+            value = promote(cache, lookupKey);
+        }
+        if (value != null && isStale(cache, lookupKey)) {
+            if (loader != null) {
+                refresh(groupRegistry.key(lookupKey.group().name(), lookupKey.subKey()), value, loader);
+            } else {
+                value = null;
+            }
+        }
+        GroupStats stats = statistics.forGroup(lookupKey.group());
+        if (value != null) {
+            stats.recordHits(1);
+        } else {
+            stats.recordMisses(1);
+        }
+        return value;
+    }
+
+    /**
+     * @return {@code true} if the entry of the key is past its TTL and within its group's grace window.
+     */
+    private static boolean isStale(Cache<CacheKey, Object> cache, CacheKey key) {
+        long graceNanos = key.group().graceNanos();
+        if (graceNanos == 0) {
+            return false;
+        }
+        OptionalLong remainingNanos = cache.policy().expireVariably()
+                .map(expiration -> expiration.getExpiresAfter(key, TimeUnit.NANOSECONDS))
+                .orElse(OptionalLong.empty());
+        return remainingNanos.isPresent() && remainingNanos.getAsLong() <= graceNanos;
+    }
+
+    /**
+     * Loads a fresh value for a stale entry in the background, unless a refresh of the key is
+     * already running. The fresh value only replaces the stale one if it was not written meanwhile.
+     */
+    private void refresh(CacheKey key, Object staleValue, GroupLoader<?> loader) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        CacheGroup group = key.group();
+        GroupStats stats = statistics.forGroup(group);
+        long start = System.nanoTime();
+        CompletableFuture<Object> loading;
+        try {
+            loading = loadAsync(group, key.subKey(), loader);
+        } catch (RuntimeException e) {
+            refreshing.remove(key);
+            throw e;
+        }
+        loading.whenComplete((loaded, failure) -> {
+            try {
+                if (failure != null) {
+                    stats.recordLoadFailure(System.nanoTime() - start);
+                    logger.warn("Failed to refresh stale cache entry for key '{}'", key, failure);
+                    return;
+                }
+                Object value = negativeIfAbsent(group, valueCanonicalizer.canonicalize(group, loaded));
+                recordLoad(stats, value, System.nanoTime() - start);
+                if (value != null && cacheFor(key).asMap().replace(key, staleValue, value)) {
+                    offHeapTier.discard(key);
+                }
+            } finally {
+                refreshing.remove(key);
+            }
+        });
+    }
+
+    /**
+     * Starts loading a sub-key without blocking a thread of the load executor: a coalesced load
+     * joins its batch, any other load runs as a task on the executor.
+     */
+    private CompletableFuture<Object> loadAsync(CacheGroup group, String subKey, GroupLoader<?> loader) {
+        if (loadCoalescer.covers(group)) {
+            return loadCoalescer.loadAsync(loader, subKey);
+        }
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        loadExecutor.execute(() -> {
+            try {
+                result.complete(loader.load(subKey));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    private Object promote(Cache<CacheKey, Object> cache, CacheKey lookupKey) {
+        OffHeapStore.Entry promoted = offHeapTier.promote(cache, lookupKey);
+        if (promoted == null) {
+            return null;
+        }
+        groupKeyIndex.add(promoted.key());
+        return promoted.value();
+    }
+
+    Object load(String groupKey, String subKey, GroupLoader<?> loader) {
+        CacheKey cacheKey = groupRegistry.key(groupKey, subKey);
+        GroupStats stats = statistics.forGroup(cacheKey.group());
+        Cache<CacheKey, Object> cache = cacheFor(cacheKey);
+        Object value;
+        if (loadCoalescer.covers(cacheKey.group())) {
+            // Not within compute: waiting for the batch there would hold the lock of the key's bin
+            // and keep the keys sharing it out of the batch. The batch itself joins repeated sub-keys.
+            value = loadValue(cacheKey, loader, stats);
+            if (value != null) {
+                Object present = cache.asMap().putIfAbsent(cacheKey, value);
+                value = present != null ? present : value;
+            }
+        } else {
+            value = cache.get(cacheKey, key -> loadValue(key, loader, stats));
+        }
+        if (value != null) {
+            groupKeyIndex.add(cacheKey);
+            offHeapTier.discard(cacheKey);
+        }
+        return value;
+    }
+
+    private Object loadValue(CacheKey key, GroupLoader<?> loader, GroupStats stats) {
+        long start = System.nanoTime();
+        try {
+            Object loaded = loadOne(key.group(), key.subKey(), loader);
+            recordLoad(stats, loaded, System.nanoTime() - start);
+            return loaded;
+        } catch (RuntimeException e) {
+            stats.recordLoadFailure(System.nanoTime() - start);
+            logger.warn("Failed to load cache entry for key '{}'", key, e);
+            throw e;
+        } catch (Exception e) {
+            stats.recordLoadFailure(System.nanoTime() - start);
+            logger.warn("Failed to load cache entry for key '{}'", key, e);
+            throw new CompletionException(e);
+        }
+    }
+
+    private <T> Map<String, T> readAll(String groupKey, Collection<String> subKeys, Class<T> type, GroupLoader<?> loader) {
+        Map<CacheKey, String> keys = new LinkedHashMap<>();
+        for (String subKey : subKeys) {
+            keys.put(groupRegistry.key(groupKey, subKey), subKey);
+        }
+        CacheGroup group = groupRegistry.group(groupKey);
+        Cache<CacheKey, Object> cache = segments.cacheFor(group);
+        GroupStats stats = statistics.forGroup(group);
+        Map<CacheKey, Object> values = cache.getAllPresent(keys.keySet());
+        int negativeHits = 0;
+        for (Object value : values.values()) {
+            if (value == NegativeEntry.INSTANCE) {
+                negativeHits++;
+            }
+        }
+        if (values.size() < keys.size() && offHeapTier.covers(group)) {
+            values = new HashMap<>(values);
+            for (CacheKey key : keys.keySet()) {
+                Object promoted = values.containsKey(key) ? null : promote(cache, key);
+                if (promoted != null) {
+                    values.put(key, promoted);
+                }
+            }
+        }
+        if (group.graceNanos() > 0 && !values.isEmpty()) {
+            values = new HashMap<>(values);
+            for (Iterator<Map.Entry<CacheKey, Object>> it = values.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<CacheKey, Object> entry = it.next();
+                if (entry.getValue() == NegativeEntry.INSTANCE || !isStale(cache, entry.getKey())) {
+                    continue;
+                }
+                if (loader != null) {
+                    refresh(entry.getKey(), entry.getValue(), loader);
+                } else {
+                    it.remove();
+                }
+            }
+        }
+        stats.recordNegativeHits(negativeHits);
+        stats.recordHits(values.size() - negativeHits);
+        stats.recordMisses(keys.size() - values.size());
+        if (loader != null && values.size() < keys.size()) {
+            Set<CacheKey> missingKeys = new HashSet<>(keys.keySet());
+            missingKeys.removeAll(values.keySet());
+            Map<CacheKey, Object> loaded = cache.getAll(missingKeys, missing -> loadAll(missing, keys, loader, stats));
+            loaded.keySet().forEach(groupKeyIndex::add);
+            values = new HashMap<>(values);
+            values.putAll(loaded);
+        }
+
+        Map<String, T> result = new LinkedHashMap<>();
+        for (Map.Entry<CacheKey, String> key : keys.entrySet()) {
+            T value = typed(values.get(key.getKey()), type);
+            if (value != null) {
+                result.put(key.getValue(), value);
+            }
+        }
+        return result;
+    }
+
+    private Map<CacheKey, Object> loadAll(Set<? extends CacheKey> missing, Map<CacheKey, String> subKeysByKey,
+                                          GroupLoader<?> loader, GroupStats stats) {
+        Map<String, CacheKey> keysBySubKey = new HashMap<>();
+        for (CacheKey key : missing) {
+            keysBySubKey.put(subKeysByKey.get(key), key);
+        }
+        Map<String, ?> loaded;
+        long start = System.nanoTime();
+        long loadTime;
+        try {
+            loaded = loader.loadAll(keysBySubKey.keySet());
+            loadTime = System.nanoTime() - start;
+        } catch (RuntimeException e) {
+            stats.recordLoadFailure(System.nanoTime() - start);
+            logger.warn("Failed to bulk load {} cache entries", missing.size(), e);
+            throw e;
+        } catch (Exception e) {
+            stats.recordLoadFailure(System.nanoTime() - start);
+            logger.warn("Failed to bulk load {} cache entries", missing.size(), e);
+            throw new CompletionException(e);
+        }
+        Map<CacheKey, Object> values = new HashMap<>();
+        for (Map.Entry<String, ?> entry : loaded.entrySet()) {
+            CacheKey key = keysBySubKey.get(entry.getKey());
+            if (key != null && entry.getValue() != null) {
+                values.put(key, valueCanonicalizer.canonicalize(key.group(), entry.getValue()));
+            }
+        }
+        int absent = missing.size() - values.size();
+        if (values.isEmpty()) {
+            stats.recordNegativeLoad(loadTime);
+            stats.recordNegativeLoads(absent - 1);
+        } else {
+            stats.recordLoadSuccess(loadTime);
+            stats.recordNegativeLoads(absent);
+        }
+        if (absent > 0) {
+            for (CacheKey key : missing) {
+                if (!values.containsKey(key)) {
+                    Object negative = negativeIfAbsent(key.group(), null);
+                    if (negative != null) {
+                        values.put(key, negative);
+                    }
+                }
+            }
+        }
+        return values;
+    }
+
+    private Object loadOne(CacheGroup group, String subKey, GroupLoader<?> loader) throws Exception {
+        Object loaded = loadCoalescer.covers(group) ? loadCoalescer.load(loader, subKey) : loader.load(subKey);
+        return negativeIfAbsent(group, valueCanonicalizer.canonicalize(group, loaded));
+    }
+
+    /**
+     * Records a single-key load as a success only if it produced a value.
+     */
+    private static void recordLoad(GroupStats stats, Object loaded, long loadTimeNanos) {
+        if (loaded == null || loaded == NegativeEntry.INSTANCE) {
+            stats.recordNegativeLoad(loadTimeNanos);
+        } else {
+            stats.recordLoadSuccess(loadTimeNanos);
+        }
+    }
+
+    /**
+     * @return the value as the given type, or {@code null} if it is absent, a {@link NegativeEntry}
+     *         or of another type. Every value returned to a caller goes through here, so the
+     *         sentinel never escapes, even to callers asking for {@code Object}.
+     */
+    static <T> T typed(Object value, Class<T> type) {
+        return value != NegativeEntry.INSTANCE && type.isInstance(value) ? type.cast(value) : null;
+    }
+
+    /**
+     * @return the value, or the {@link NegativeEntry} if there is none and the group caches its absence.
+     */
+    private static Object negativeIfAbsent(CacheGroup group, Object value) {
+        if (value != null || group.negativeNanos() == 0) {
+            return value;
         }
-        return Optional.empty();
+        return NegativeEntry.INSTANCE;
     }
 }
\ No newline at end of file
@@ -0,0 +1,321 @@
+package com.biswamit.cache.snapshot;
+
+import com.biswamit.cache.config.CacheSegments;
+import com.biswamit.cache.config.CacheTtlProperties;
+import com.biswamit.cache.config.ValueCanonicalizer;
+import com.biswamit.cache.key.CacheGroupRegistry;
+import com.biswamit.cache.key.CacheKey;
+import com.biswamit.cache.key.GroupKeyIndex;
+import com.biswamit.cache.tier.SerializerRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists the cache contents to a file and restores them on the next start, so a deploy does
+ * not begin with an empty cache.
+ *
+ * Each entry is written with its group, sub-key, serialized value and the time it had left to
+ * live, read from {@link Policy.VarExpiration}. The snapshot is streamed through a
+ * {@link FileChannel} into a temporary file that then replaces the previous snapshot atomically.
+ * Restoring memory-maps the file and inserts the entries that have not expired in the meantime,
+ * counting the downtime against their TTL. Restored values go through the {@link ValueCanonicalizer}
+ * like loaded ones. Entries already present are left alone, so a restore running in the background
+ * never overwrites fresher data.
+ *
+ * File layout: length-prefixed records, ended by a zero length. The first record is the header
+ * with the magic number, the format version, the wall-clock time the snapshot was taken and the
+ * value types by tag; every following record is one entry. Value types are matched by class name, so snapshots stay readable when
+ * serializers are added or reordered; entries of unknown types are skipped.
+ */
+public class CacheSnapshotter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheSnapshotter.class);
+
+    private static final int MAGIC = 0x43534E50; // "CSNP"
+    private static final int VERSION = 1;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final CacheSegments segments;
+    private final CacheGroupRegistry groupRegistry;
+    private final GroupKeyIndex groupKeyIndex;
+    private final SerializerRegistry serializers;
+    private final ValueCanonicalizer valueCanonicalizer;
+    private final Path file;
+    private final boolean restoreOnStart;
+    private final Duration interval;
+    private final Clock clock;
+    private ScheduledExecutorService executor;
+
+    public CacheSnapshotter(CacheSegments segments, CacheGroupRegistry groupRegistry, GroupKeyIndex groupKeyIndex,
+                            SerializerRegistry serializers, ValueCanonicalizer valueCanonicalizer,
+                            CacheTtlProperties.Snapshot snapshot, Clock clock) {
+        this.segments = segments;
+        this.groupRegistry = groupRegistry;
+        this.groupKeyIndex = groupKeyIndex;
+        this.serializers = serializers;
+        this.valueCanonicalizer = valueCanonicalizer;
+        this.file = snapshot.getFile().toAbsolutePath();
+        this.restoreOnStart = snapshot.isRestore();
+        this.interval = snapshot.getInterval();
+        this.clock = clock;
+    }
+
+    /**
+     * Restores the previous snapshot in the background, so the application can serve requests
+     * while it loads, and schedules the periodic snapshots.
+     */
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (restoreOnStart) {
+            executor.execute(this::restoreQuietly);
+        }
+        if (interval != null) {
+            long intervalNanos = interval.toNanos();
+            executor.scheduleWithFixedDelay(this::writeQuietly, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Stops the background work and writes a final snapshot.
+     */
+    public void stop() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        writeQuietly();
+    }
+
+    /**
+     * Writes every unexpired entry that has a serializer to the snapshot file. If the write fails,
+     * the temporary file is deleted and the previous snapshot is left as it was.
+     *
+     * @return the number of entries written.
+     */
+    public int write() throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        int written;
+        try {
+            written = writeTo(tempFile);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        logger.info("Wrote {} cache entries to snapshot '{}'", written, file);
+        return written;
+    }
+
+    private int writeTo(Path tempFile) throws IOException {
+        int written = 0;
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+            ByteArrayOutputStream record = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(record);
+            writeHeader(out);
+            append(channel, buffer, record);
+
+            List<Cache<CacheKey, Object>> caches = new ArrayList<>();
+            caches.add(segments.sharedCache());
+            caches.addAll(segments.segments().values());
+            for (Cache<CacheKey, Object> cache : caches) {
+                Policy.VarExpiration<CacheKey, Object> expiration = cache.policy().expireVariably().orElse(null);
+                if (expiration == null) {
+                    continue;
+                }
+                for (Map.Entry<CacheKey, Object> entry : cache.asMap().entrySet()) {
+                    Optional<Duration> remaining = expiration.getExpiresAfter(entry.getKey());
+                    if (remaining.isEmpty() || !serializers.supports(entry.getValue())) {
+                        continue;
+                    }
+                    writeEntry(entry.getKey(), entry.getValue(), remaining.get().toNanos(), out);
+                    append(channel, buffer, record);
+                    written++;
+                }
+            }
+            append(channel, buffer, record);
+            flush(channel, buffer);
+            channel.force(false);
+        }
+        return written;
+    }
+
+    /**
+     * Restores the unexpired entries of the snapshot file, if it exists.
+     *
+     * @return the number of entries restored.
+     */
+    public int restore() throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return 0;
+        }
+        int restored = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot '" + file + "' is too large to map");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            DataInputStream header = next(buffer);
+            if (header == null || header.readInt() != MAGIC || header.readInt() != VERSION) {
+                throw new IOException("'" + file + "' is not a cache snapshot");
+            }
+            long elapsedNanos = Math.max(0, TimeUnit.MILLISECONDS.toNanos(clock.millis() - header.readLong()));
+            int[] tags = readTags(header);
+            for (DataInputStream entry = next(buffer); entry != null; entry = next(buffer)) {
+                if (restoreEntry(entry, tags, elapsedNanos)) {
+                    restored++;
+                }
+            }
+        }
+        logger.info("Restored {} cache entries from snapshot '{}'", restored, file);
+        return restored;
+    }
+
+    private void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(clock.millis());
+        List<Class<?>> types = serializers.types();
+        out.writeInt(types.size());
+        for (Class<?> type : types) {
+            out.writeUTF(type.getName());
+        }
+    }
+
+    private void writeEntry(CacheKey key, Object value, long remainingNanos, DataOutputStream out) throws IOException {
+        out.writeUTF(key.group().name());
+        String subKey = key.subKey();
+        out.writeBoolean(subKey != null);
+        if (subKey != null) {
+            out.writeUTF(subKey);
+        }
+        out.writeLong(remainingNanos);
+        serializers.write(value, out);
+    }
+
+    /**
+     * Maps the tags of the snapshot onto the tags of the current registry, or -1 for unknown types.
+     */
+    private int[] readTags(DataInputStream in) throws IOException {
+        Map<String, Integer> currentTags = new HashMap<>();
+        List<Class<?>> types = serializers.types();
+        for (int i = 0; i < types.size(); i++) {
+            currentTags.put(types.get(i).getName(), i);
+        }
+        int[] tags = new int[in.readInt()];
+        for (int i = 0; i < tags.length; i++) {
+            tags[i] = currentTags.getOrDefault(in.readUTF(), -1);
+        }
+        return tags;
+    }
+
+    private boolean restoreEntry(DataInputStream in, int[] tags, long elapsedNanos) throws IOException {
+        String groupName = in.readUTF();
+        String subKey = in.readBoolean() ? in.readUTF() : null;
+        long remainingNanos = in.readLong() - elapsedNanos;
+        int tag = in.readByte();
+        if (remainingNanos <= 0 || tag < 0 || tag >= tags.length || tags[tag] < 0) {
+            return false;
+        }
+        CacheKey key = groupRegistry.key(groupName, subKey);
+        Object value = valueCanonicalizer.canonicalize(key.group(), serializers.read(tags[tag], in));
+        Cache<CacheKey, Object> cache = segments.cacheFor(key.group());
+        Policy.VarExpiration<CacheKey, Object> expiration = cache.policy().expireVariably().orElse(null);
+        if (expiration == null
+                || expiration.putIfAbsent(key, value, remainingNanos, TimeUnit.NANOSECONDS) != null) {
+            return false;
+        }
+        groupKeyIndex.add(key);
+        return true;
+    }
+
+    /**
+     * Reads the next record of a mapped snapshot.
+     *
+     * @return the record, or {@code null} at the trailer.
+     */
+    private static DataInputStream next(ByteBuffer buffer) {
+        int length = buffer.remaining() >= Integer.BYTES ? buffer.getInt() : 0;
+        if (length <= 0) {
+            return null;
+        }
+        byte[] record = new byte[length];
+        buffer.get(record);
+        return new DataInputStream(new ByteArrayInputStream(record));
+    }
+
+    /**
+     * Appends a record to the write buffer, prefixed with its length. An empty record is the trailer.
+     */
+    private static void append(FileChannel channel, ByteBuffer buffer, ByteArrayOutputStream record) throws IOException {
+        byte[] bytes = record.toByteArray();
+        record.reset();
+        if (buffer.remaining() < Integer.BYTES) {
+            flush(channel, buffer);
+        }
+        buffer.putInt(bytes.length);
+        for (int offset = 0; offset < bytes.length; ) {
+            if (!buffer.hasRemaining()) {
+                flush(channel, buffer);
+            }
+            int chunk = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void restoreQuietly() {
+        try {
+            restore();
+        } catch (IOException | RuntimeException e) {
+            // Start cold, the snapshot is replaced by the next write
+            logger.warn("Failed to restore cache snapshot '{}'", file, e);
+        }
+    }
+
+    private void writeQuietly() {
+        try {
+            write();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to write cache snapshot '{}'", file, e);
+        }
+    }
+}
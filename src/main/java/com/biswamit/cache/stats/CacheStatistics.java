@@ -0,0 +1,66 @@
+package com.biswamit.cache.stats;
+
+import com.biswamit.cache.key.CacheGroup;
+import com.biswamit.cache.key.CacheKey;
+import com.biswamit.cache.key.GroupKeyIndex;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.RemovalListener;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per-group cache statistics. Caffeine's own {@code StatsCounter} is not told which key an event
+ * belongs to, so hits, misses and loads are recorded by the service, which knows the group, and
+ * removals are recorded by acting as the caches' removal listener.
+ */
+public class CacheStatistics implements RemovalListener<CacheKey, Object> {
+
+    private final ConcurrentMap<CacheGroup, GroupStats> statsByGroup = new ConcurrentHashMap<>();
+    private final GroupKeyIndex groupKeyIndex;
+
+    /**
+     * @param groupKeyIndex Provides the entry count of each group.
+     */
+    public CacheStatistics(GroupKeyIndex groupKeyIndex) {
+        this.groupKeyIndex = groupKeyIndex;
+    }
+
+    /**
+     * @return the counters of a group, created on first use.
+     */
+    public GroupStats forGroup(CacheGroup group) {
+        GroupStats stats = statsByGroup.get(group);
+        return stats != null ? stats : statsByGroup.computeIfAbsent(group, g -> new GroupStats());
+    }
+
+    @Override
+    public void onRemoval(@Nullable CacheKey key, @Nullable Object value, RemovalCause cause) {
+        if (key != null) {
+            forGroup(key.group()).recordRemoval(cause);
+        }
+    }
+
+    /**
+     * @return a snapshot of the group's statistics.
+     */
+    public GroupStatsSnapshot snapshot(CacheGroup group) {
+        return forGroup(group).snapshot(group.name(), groupKeyIndex.keys(group).size());
+    }
+
+    /**
+     * @return a snapshot of every group that has recorded activity.
+     */
+    public List<GroupStatsSnapshot> snapshots() {
+        List<GroupStatsSnapshot> snapshots = new ArrayList<>();
+        for (Map.Entry<CacheGroup, GroupStats> entry : statsByGroup.entrySet()) {
+            CacheGroup group = entry.getKey();
+            snapshots.add(entry.getValue().snapshot(group.name(), groupKeyIndex.keys(group).size()));
+        }
+        return snapshots;
+    }
+}
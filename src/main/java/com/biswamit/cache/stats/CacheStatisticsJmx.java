@@ -0,0 +1,159 @@
+package com.biswamit.cache.stats;
+
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Exposes {@link CacheStatistics} on the platform MBean server as
+ * {@code com.biswamit.cache:type=CacheStatistics}. Every attribute read takes fresh snapshots.
+ */
+public class CacheStatisticsJmx implements CacheStatisticsMXBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheStatisticsJmx.class);
+    private static final String OBJECT_NAME = "com.biswamit.cache:type=CacheStatistics";
+
+    private final CacheStatistics statistics;
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    private ObjectName objectName;
+
+    public CacheStatisticsJmx(CacheStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public void register() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (mBeanServer.isRegistered(name)) {
+                logger.warn("MBean '{}' is already registered, cache statistics are not exported", OBJECT_NAME);
+                return;
+            }
+            mBeanServer.registerMBean(this, name);
+            objectName = name;
+        } catch (JMException e) {
+            logger.warn("Failed to register MBean '{}'", OBJECT_NAME, e);
+        }
+    }
+
+    public void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            mBeanServer.unregisterMBean(objectName);
+        } catch (JMException e) {
+            logger.warn("Failed to unregister MBean '{}'", OBJECT_NAME, e);
+        }
+        objectName = null;
+    }
+
+    @Override
+    public String[] getGroups() {
+        return statistics.snapshots().stream().map(GroupStatsSnapshot::group).sorted().toArray(String[]::new);
+    }
+
+    @Override
+    public Map<String, Long> getHitCounts() {
+        return byGroup(GroupStatsSnapshot::hitCount);
+    }
+
+    @Override
+    public Map<String, Long> getMissCounts() {
+        return byGroup(GroupStatsSnapshot::missCount);
+    }
+
+    @Override
+    public Map<String, Double> getHitRates() {
+        return byGroupDouble(GroupStatsSnapshot::hitRate);
+    }
+
+    @Override
+    public Map<String, Long> getNegativeHitCounts() {
+        return byGroup(GroupStatsSnapshot::negativeHitCount);
+    }
+
+    @Override
+    public Map<String, Long> getLoadSuccessCounts() {
+        return byGroup(GroupStatsSnapshot::loadSuccessCount);
+    }
+
+    @Override
+    public Map<String, Long> getLoadFailureCounts() {
+        return byGroup(GroupStatsSnapshot::loadFailureCount);
+    }
+
+    @Override
+    public Map<String, Double> getAverageLoadPenaltyMillis() {
+        return byGroupDouble(snapshot -> snapshot.averageLoadPenaltyNanos() / TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    @Override
+    public Map<String, Long> getEvictionCounts() {
+        return byGroup(GroupStatsSnapshot::evictionCount);
+    }
+
+    @Override
+    public Map<String, Long> getEntryCounts() {
+        return byGroup(GroupStatsSnapshot::entryCount);
+    }
+
+    @Override
+    public Map<String, Long> getCanonicalSavedBytes() {
+        return byGroup(GroupStatsSnapshot::canonicalSavedBytes);
+    }
+
+    @Override
+    public Map<String, Long> removalCounts(String group) {
+        Map<String, Long> removals = new LinkedHashMap<>();
+        findSnapshot(group).ifPresent(snapshot -> {
+            for (RemovalCause cause : RemovalCause.values()) {
+                removals.put(cause.name(), snapshot.removalCount(cause));
+            }
+        });
+        return removals;
+    }
+
+    @Override
+    public Map<String, Long> loadLatencyPercentilesMicros(String group) {
+        Map<String, Long> percentiles = new LinkedHashMap<>();
+        findSnapshot(group).ifPresent(snapshot -> {
+            percentiles.put("p50", TimeUnit.NANOSECONDS.toMicros(snapshot.loadLatencyPercentileNanos(50)));
+            percentiles.put("p90", TimeUnit.NANOSECONDS.toMicros(snapshot.loadLatencyPercentileNanos(90)));
+            percentiles.put("p99", TimeUnit.NANOSECONDS.toMicros(snapshot.loadLatencyPercentileNanos(99)));
+            percentiles.put("p999", TimeUnit.NANOSECONDS.toMicros(snapshot.loadLatencyPercentileNanos(99.9)));
+        });
+        return percentiles;
+    }
+
+    private Optional<GroupStatsSnapshot> findSnapshot(String group) {
+        return statistics.snapshots().stream().filter(snapshot -> snapshot.group().equals(group)).findFirst();
+    }
+
+    private Map<String, Long> byGroup(ToLongFunction<GroupStatsSnapshot> metric) {
+        Map<String, Long> values = new TreeMap<>();
+        for (GroupStatsSnapshot snapshot : statistics.snapshots()) {
+            values.put(snapshot.group(), metric.applyAsLong(snapshot));
+        }
+        return values;
+    }
+
+    private Map<String, Double> byGroupDouble(ToDoubleFunction<GroupStatsSnapshot> metric) {
+        Map<String, Double> values = new TreeMap<>();
+        for (GroupStatsSnapshot snapshot : statistics.snapshots()) {
+            values.put(snapshot.group(), metric.applyAsDouble(snapshot));
+        }
+        return values;
+    }
+}
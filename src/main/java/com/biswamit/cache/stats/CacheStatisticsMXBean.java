@@ -0,0 +1,41 @@
+package com.biswamit.cache.stats;
+
+import java.util.Map;
+
+/**
+ * JMX view of the per-group cache statistics. Attributes are keyed by group name.
+ */
+public interface CacheStatisticsMXBean {
+
+    String[] getGroups();
+
+    Map<String, Long> getHitCounts();
+
+    Map<String, Long> getMissCounts();
+
+    Map<String, Double> getHitRates();
+
+    Map<String, Long> getNegativeHitCounts();
+
+    Map<String, Long> getLoadSuccessCounts();
+
+    Map<String, Long> getLoadFailureCounts();
+
+    Map<String, Double> getAverageLoadPenaltyMillis();
+
+    Map<String, Long> getEvictionCounts();
+
+    Map<String, Long> getEntryCounts();
+
+    Map<String, Long> getCanonicalSavedBytes();
+
+    /**
+     * @return the removals of a group by cause name.
+     */
+    Map<String, Long> removalCounts(String group);
+
+    /**
+     * @return the estimated p50, p90, p99 and p999 load latency of a group in microseconds.
+     */
+    Map<String, Long> loadLatencyPercentilesMicros(String group);
+}
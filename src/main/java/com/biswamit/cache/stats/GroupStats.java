@@ -0,0 +1,91 @@
+package com.biswamit.cache.stats;
+
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Striped counters for a single cache group. Every counter is a {@link LongAdder}, so
+ * concurrent readers and writers recording on the hot path do not contend on a shared cell.
+ */
+public final class GroupStats {
+
+    private static final RemovalCause[] CAUSES = RemovalCause.values();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder negativeLoads = new LongAdder();
+    private final LongAdder canonicalSavedBytes = new LongAdder();
+    private final LongAdder loadSuccesses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+    private final LongAdder[] removals = new LongAdder[CAUSES.length];
+
+    GroupStats() {
+        for (int i = 0; i < removals.length; i++) {
+            removals[i] = new LongAdder();
+        }
+    }
+
+    public void recordHits(int count) {
+        hits.add(count);
+    }
+
+    public void recordMisses(int count) {
+        misses.add(count);
+    }
+
+    public void recordNegativeHits(int count) {
+        negativeHits.add(count);
+    }
+
+    /**
+     * Records a load that found no value. Its time is not counted as a success.
+     */
+    public void recordNegativeLoad(long loadTimeNanos) {
+        negativeLoads.increment();
+        recordLoadTime(loadTimeNanos);
+    }
+
+    /**
+     * Records sub-keys a bulk load found no value for, whose time was recorded with the bulk load.
+     */
+    public void recordNegativeLoads(int count) {
+        negativeLoads.add(count);
+    }
+
+    public void recordCanonicalSavings(long bytes) {
+        canonicalSavedBytes.add(bytes);
+    }
+
+    public void recordLoadSuccess(long loadTimeNanos) {
+        loadSuccesses.increment();
+        recordLoadTime(loadTimeNanos);
+    }
+
+    public void recordLoadFailure(long loadTimeNanos) {
+        loadFailures.increment();
+        recordLoadTime(loadTimeNanos);
+    }
+
+    private void recordLoadTime(long loadTimeNanos) {
+        totalLoadTime.add(loadTimeNanos);
+        loadLatency.record(loadTimeNanos);
+    }
+
+    public void recordRemoval(RemovalCause cause) {
+        removals[cause.ordinal()].increment();
+    }
+
+    GroupStatsSnapshot snapshot(String group, long entryCount) {
+        long[] removalCounts = new long[CAUSES.length];
+        for (int i = 0; i < removalCounts.length; i++) {
+            removalCounts[i] = removals[i].sum();
+        }
+        return new GroupStatsSnapshot(group, hits.sum(), misses.sum(), negativeHits.sum(), negativeLoads.sum(),
+                loadSuccesses.sum(), loadFailures.sum(),
+                totalLoadTime.sum(), loadLatency.counts(), removalCounts, entryCount, canonicalSavedBytes.sum());
+    }
+}
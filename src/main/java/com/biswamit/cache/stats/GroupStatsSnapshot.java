@@ -0,0 +1,80 @@
+package com.biswamit.cache.stats;
+
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * An immutable point-in-time view of the statistics of one cache group.
+ *
+ * @param group The group name.
+ * @param hitCount Lookups that found a value.
+ * @param missCount Lookups that found no value (whether or not it was then loaded).
+ * @param negativeHitCount Lookups answered by a negative entry; counted neither as hits nor as misses.
+ * @param negativeLoadCount Loads that found no value, whether or not the group cached a negative entry
+ *                          for them; a bulk load counts once per sub-key it found no value for.
+ * @param loadSuccessCount Loads that produced a value; a bulk load counts once if it produced any.
+ * @param loadFailureCount Loads that threw.
+ * @param totalLoadTimeNanos Time spent in loads, whether they produced a value, found none or threw.
+ * @param loadLatencyBuckets Load latency counts in power-of-two nanosecond buckets, see {@link LatencyHistogram}.
+ * @param removalCounts Removals indexed by {@link RemovalCause#ordinal()}.
+ * @param entryCount Entries currently held by the group.
+ * @param canonicalSavedBytes Estimated bytes not retained because stored values shared components
+ *                            with earlier ones, summed over every canonicalized value.
+ */
+public record GroupStatsSnapshot(String group, long hitCount, long missCount, long negativeHitCount,
+                                 long negativeLoadCount, long loadSuccessCount,
+                                 long loadFailureCount, long totalLoadTimeNanos, long[] loadLatencyBuckets,
+                                 long[] removalCounts, long entryCount, long canonicalSavedBytes) {
+
+    public long requestCount() {
+        return hitCount + missCount;
+    }
+
+    public double hitRate() {
+        long requests = requestCount();
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    public double averageLoadPenaltyNanos() {
+        long loads = loadSuccessCount + negativeLoadCount + loadFailureCount;
+        return loads == 0 ? 0.0 : (double) totalLoadTimeNanos / loads;
+    }
+
+    /**
+     * @return the estimated load latency percentile in nanoseconds, see {@link LatencyHistogram#percentile}.
+     */
+    public long loadLatencyPercentileNanos(double percentile) {
+        return LatencyHistogram.percentile(loadLatencyBuckets, percentile);
+    }
+
+    /**
+     * @return the number of entries removed for the given cause.
+     */
+    public long removalCount(RemovalCause cause) {
+        return removalCounts[cause.ordinal()];
+    }
+
+    /**
+     * @return the number of entries evicted by the cache (expired, size or collected), excluding
+     * explicit invalidations and replacements.
+     */
+    public long evictionCount() {
+        long evictions = 0;
+        for (RemovalCause cause : RemovalCause.values()) {
+            if (cause.wasEvicted()) {
+                evictions += removalCounts[cause.ordinal()];
+            }
+        }
+        return evictions;
+    }
+
+    public Map<RemovalCause, Long> removalsByCause() {
+        Map<RemovalCause, Long> removals = new EnumMap<>(RemovalCause.class);
+        for (RemovalCause cause : RemovalCause.values()) {
+            removals.put(cause, removalCounts[cause.ordinal()]);
+        }
+        return removals;
+    }
+}
@@ -0,0 +1,66 @@
+package com.biswamit.cache.stats;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with power-of-two nanosecond buckets. Bucket {@code i} counts
+ * latencies in {@code [2^i, 2^(i+1))} ns, which bounds percentile error to a factor of two while
+ * keeping recording to a single striped increment.
+ */
+public final class LatencyHistogram {
+
+    static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        buckets[bucket(nanos)].increment();
+    }
+
+    /**
+     * @return the count of each bucket.
+     */
+    public long[] counts() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    /**
+     * Estimates a percentile from bucket counts, reporting the upper bound of the bucket it falls in.
+     *
+     * @param counts The bucket counts, as returned by {@link #counts()}.
+     * @param percentile The percentile in {@code [0, 100]}.
+     * @return the estimated latency in nanoseconds, or 0 if nothing was recorded.
+     */
+    public static long percentile(long[] counts, double percentile) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(rank, 1)) {
+                return i >= 62 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private static int bucket(long nanos) {
+        return nanos <= 1 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+    }
+}
@@ -0,0 +1,142 @@
+package com.biswamit.cache.tier;
+
+import com.biswamit.cache.model.TenantEventSetting;
+import com.biswamit.cache.model.TenantMapper;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Serializers for the model records and the simple values stored in the cache.
+ * Nullable fields are written with a presence flag.
+ */
+public final class ModelSerializers {
+
+    private ModelSerializers() {
+    }
+
+    /**
+     * @return the serializers registered by default, in tag order.
+     */
+    public static List<ValueSerializer<?>> defaults() {
+        return List.of(new StringSerializer(), new BooleanSerializer(),
+                new TenantMapperSerializer(), new TenantEventSettingSerializer());
+    }
+
+    public static final class StringSerializer implements ValueSerializer<String> {
+        @Override
+        public Class<String> type() {
+            return String.class;
+        }
+
+        @Override
+        public void write(String value, DataOutput out) throws IOException {
+            out.writeUTF(value);
+        }
+
+        @Override
+        public String read(DataInput in) throws IOException {
+            return in.readUTF();
+        }
+    }
+
+    public static final class BooleanSerializer implements ValueSerializer<Boolean> {
+        @Override
+        public Class<Boolean> type() {
+            return Boolean.class;
+        }
+
+        @Override
+        public void write(Boolean value, DataOutput out) throws IOException {
+            out.writeBoolean(value);
+        }
+
+        @Override
+        public Boolean read(DataInput in) throws IOException {
+            return in.readBoolean();
+        }
+    }
+
+    public static final class TenantMapperSerializer implements ValueSerializer<TenantMapper> {
+        @Override
+        public Class<TenantMapper> type() {
+            return TenantMapper.class;
+        }
+
+        @Override
+        public void write(TenantMapper value, DataOutput out) throws IOException {
+            writeNullableString(value.cyborgTenantId(), out);
+            writeNullableString(value.odsyId(), out);
+            writeNullableString(value.region(), out);
+            writeNullableString(value.helixIngestionGW(), out);
+            out.writeByte(value.isActive() == null ? -1 : value.isActive() ? 1 : 0);
+        }
+
+        @Override
+        public TenantMapper read(DataInput in) throws IOException {
+            String cyborgTenantId = readNullableString(in);
+            String odsyId = readNullableString(in);
+            String region = readNullableString(in);
+            String helixIngestionGW = readNullableString(in);
+            byte isActive = in.readByte();
+            return new TenantMapper(cyborgTenantId, odsyId, region, helixIngestionGW,
+                    isActive < 0 ? null : isActive == 1);
+        }
+    }
+
+    public static final class TenantEventSettingSerializer implements ValueSerializer<TenantEventSetting> {
+        @Override
+        public Class<TenantEventSetting> type() {
+            return TenantEventSetting.class;
+        }
+
+        @Override
+        public void write(TenantEventSetting value, DataOutput out) throws IOException {
+            writeStringList(value.ensEventSetting(), out);
+            writeStringList(value.dlpEventSetting(), out);
+        }
+
+        @Override
+        public TenantEventSetting read(DataInput in) throws IOException {
+            return new TenantEventSetting(readStringList(in), readStringList(in));
+        }
+    }
+
+    static void writeNullableString(String value, DataOutput out) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readNullableString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    static void writeStringList(List<String> values, DataOutput out) throws IOException {
+        if (values == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(values.size());
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+    }
+
+    static List<String> readStringList(DataInput in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(in.readUTF());
+        }
+        return Collections.unmodifiableList(values);
+    }
+}
@@ -0,0 +1,283 @@
+package com.biswamit.cache.tier;
+
+import com.biswamit.cache.key.CacheKey;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Predicate;
+
+/**
+ * A fixed-capacity store that keeps serialized values in direct (off-heap) memory.
+ *
+ * The memory is allocated once as direct {@link ByteBuffer} slabs and divided into fixed-size
+ * blocks; an entry occupies as many blocks as its serialized form needs, tracked by an on-heap
+ * slot that also holds its deadline. Free blocks are kept on a stack, so storing and removing
+ * entries never allocates or compacts direct memory. When the blocks run out, the oldest entries
+ * are evicted first. Expired entries are dropped when read and by {@link #sweep()}.
+ *
+ * Serialization and deserialization run outside the store's lock; only block bookkeeping and
+ * the copies to and from direct memory are done while holding it. Every heap write to a covered
+ * group drops the key here, and most such keys were never stored. So each key hash also counts
+ * the stored entries in one of a fixed set of counters, and {@link #remove} and
+ * {@link #invalidate} return without taking the lock when the key's counter is zero.
+ */
+public class OffHeapStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapStore.class);
+
+    private static final int MAX_SLAB_BYTES = 1 << 30;
+    private static final int MAX_PRESENCE_COUNTERS = 1 << 20;
+
+    private final ByteBuffer[] slabs;
+    private final int blockSize;
+    private final int blocksPerSlab;
+    private final int blockCount;
+    private final int[] freeBlocks;
+    private int freeCount;
+    private final LinkedHashMap<CacheKey, Slot> slots = new LinkedHashMap<>();
+    private final AtomicIntegerArray presence;
+    private final SerializerRegistry serializers;
+    private final Ticker ticker;
+    private long evictionCount;
+
+    /**
+     * @param capacityBytes The direct memory to allocate, rounded down to whole blocks.
+     * @param blockSize The size of one block in bytes.
+     * @param serializers Serializes the stored values; values of other types are not stored.
+     * @param ticker The time source for deadlines; must be the same as the on-heap cache's.
+     */
+    public OffHeapStore(long capacityBytes, int blockSize, SerializerRegistry serializers, Ticker ticker) {
+        if (blockSize <= 0 || capacityBytes < blockSize) {
+            throw new IllegalArgumentException("Capacity must hold at least one block of " + blockSize + " bytes");
+        }
+        long blocks = capacityBytes / blockSize;
+        if (blocks > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Capacity of " + capacityBytes + " bytes needs too many blocks");
+        }
+        this.blockSize = blockSize;
+        this.blockCount = (int) blocks;
+        this.blocksPerSlab = Math.max(1, MAX_SLAB_BYTES / blockSize);
+        this.slabs = new ByteBuffer[(blockCount + blocksPerSlab - 1) / blocksPerSlab];
+        for (int i = 0; i < slabs.length; i++) {
+            int slabBlocks = Math.min(blocksPerSlab, blockCount - i * blocksPerSlab);
+            slabs[i] = ByteBuffer.allocateDirect(slabBlocks * blockSize);
+        }
+        this.freeBlocks = new int[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            freeBlocks[i] = blockCount - 1 - i;
+        }
+        this.freeCount = blockCount;
+        // At most one entry per block, so about one counter per entry when the store is full
+        this.presence = new AtomicIntegerArray(Math.min(MAX_PRESENCE_COUNTERS,
+                Integer.highestOneBit(Math.max(1, blockCount - 1)) << 1));
+        this.serializers = serializers;
+        this.ticker = ticker;
+    }
+
+    /**
+     * Stores a value, replacing any previous value of the key.
+     *
+     * @param key An immutable cache key.
+     * @param ttlNanos The remaining time to live of the value.
+     * @return {@code false} if the value was not stored because it has no serializer, is already
+     * expired or does not fit into the store at all.
+     */
+    public boolean put(CacheKey key, Object value, long ttlNanos) {
+        if (ttlNanos <= 0 || !serializers.supports(value)) {
+            return false;
+        }
+        byte[] bytes;
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(blockSize);
+            serializers.write(value, new DataOutputStream(buffer));
+            bytes = buffer.toByteArray();
+        } catch (IOException e) {
+            logger.warn("Failed to serialize off-heap entry for key '{}'", key, e);
+            return false;
+        }
+        int needed = Math.max(1, (bytes.length + blockSize - 1) / blockSize);
+        if (needed > blockCount) {
+            return false;
+        }
+        long expiresAt = ticker.read() + ttlNanos;
+        synchronized (this) {
+            release(slots.remove(key));
+            Iterator<Slot> eldest = slots.values().iterator();
+            while (freeCount < needed) {
+                release(eldest.next());
+                eldest.remove();
+                evictionCount++;
+            }
+            int[] blocks = new int[needed];
+            for (int i = 0; i < needed; i++) {
+                blocks[i] = freeBlocks[--freeCount];
+                int offset = i * blockSize;
+                slab(blocks[i]).put(offsetOf(blocks[i]), bytes, offset, Math.min(blockSize, bytes.length - offset));
+            }
+            presence.incrementAndGet(presenceIndex(key));
+            slots.put(key, new Slot(key, blocks, bytes.length, expiresAt));
+        }
+        return true;
+    }
+
+    /**
+     * Removes an entry and returns it, unless it has expired.
+     *
+     * @param key The key, which may be a lookup key.
+     * @return the entry with its stored key and remaining time to live, or {@code null}.
+     */
+    public Entry remove(CacheKey key) {
+        if (!mayContain(key)) {
+            return null;
+        }
+        Slot slot;
+        byte[] bytes;
+        synchronized (this) {
+            slot = slots.remove(key);
+            if (slot == null) {
+                return null;
+            }
+            bytes = slot.expiresAt - ticker.read() > 0 ? copy(slot) : null;
+            release(slot);
+        }
+        long remainingNanos = slot.expiresAt - ticker.read();
+        if (bytes == null || remainingNanos <= 0) {
+            return null;
+        }
+        try {
+            return new Entry(slot.key, serializers.read(new DataInputStream(new ByteArrayInputStream(bytes))), remainingNanos);
+        } catch (IOException e) {
+            logger.warn("Failed to deserialize off-heap entry for key '{}'", slot.key, e);
+            return null;
+        }
+    }
+
+    /**
+     * Drops the entry of a key, if any.
+     */
+    public void invalidate(CacheKey key) {
+        if (!mayContain(key)) {
+            return;
+        }
+        synchronized (this) {
+            release(slots.remove(key));
+        }
+    }
+
+    /**
+     * Drops every entry whose key matches the filter.
+     *
+     * @return the number of dropped entries.
+     */
+    public synchronized int invalidateAll(Predicate<CacheKey> filter) {
+        return removeIf(slot -> filter.test(slot.key));
+    }
+
+    /**
+     * Drops every expired entry.
+     *
+     * @return the number of dropped entries.
+     */
+    public synchronized int sweep() {
+        long now = ticker.read();
+        return removeIf(slot -> slot.expiresAt - now <= 0);
+    }
+
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    /**
+     * @return the bytes taken by the blocks of the stored entries.
+     */
+    public synchronized long usedBytes() {
+        return (long) (blockCount - freeCount) * blockSize;
+    }
+
+    public long capacityBytes() {
+        return (long) blockCount * blockSize;
+    }
+
+    /**
+     * @return the number of entries evicted to make room for new ones.
+     */
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+
+    private int removeIf(Predicate<Slot> filter) {
+        int removed = 0;
+        for (Iterator<Map.Entry<CacheKey, Slot>> it = slots.entrySet().iterator(); it.hasNext(); ) {
+            Slot slot = it.next().getValue();
+            if (filter.test(slot)) {
+                release(slot);
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private byte[] copy(Slot slot) {
+        byte[] bytes = new byte[slot.length];
+        for (int i = 0; i < slot.blocks.length; i++) {
+            int offset = i * blockSize;
+            slab(slot.blocks[i]).get(offsetOf(slot.blocks[i]), bytes, offset, Math.min(blockSize, slot.length - offset));
+        }
+        return bytes;
+    }
+
+    private void release(Slot slot) {
+        if (slot != null) {
+            for (int block : slot.blocks) {
+                freeBlocks[freeCount++] = block;
+            }
+            presence.decrementAndGet(presenceIndex(slot.key));
+        }
+    }
+
+    /**
+     * @return {@code false} if the key is certainly not stored; read without the lock, so a put
+     * that has not returned yet may be missed.
+     */
+    private boolean mayContain(CacheKey key) {
+        return presence.get(presenceIndex(key)) != 0;
+    }
+
+    private int presenceIndex(CacheKey key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (presence.length() - 1);
+    }
+
+    private ByteBuffer slab(int block) {
+        return slabs[block / blocksPerSlab];
+    }
+
+    private int offsetOf(int block) {
+        return (block % blocksPerSlab) * blockSize;
+    }
+
+    /**
+     * A value taken out of the store.
+     *
+     * @param key The immutable key the value was stored under.
+     * @param value The deserialized value.
+     * @param remainingNanos The time the value had left to live when it was taken out.
+     */
+    public record Entry(CacheKey key, Object value, long remainingNanos) {
+    }
+
+    private record Slot(CacheKey key, int[] blocks, int length, long expiresAt) {
+    }
+}
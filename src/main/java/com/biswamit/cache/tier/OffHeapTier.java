@@ -0,0 +1,173 @@
+package com.biswamit.cache.tier;
+
+import com.biswamit.cache.key.CacheGroup;
+import com.biswamit.cache.key.CacheKey;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * A second cache tier behind the on-heap caches of bounded groups.
+ *
+ * Entries that a bounded group's cache evicts for size are demoted into an {@link OffHeapStore}
+ * with the time they had left to live. A miss on the heap tier promotes the entry back, again
+ * with its remaining time, so moving between tiers never extends a value's lifetime. Writes and
+ * invalidations through the service discard the off-heap copy, so it never shadows newer data.
+ * Only values with a registered {@link ValueSerializer} are demoted; others are simply evicted.
+ */
+public class OffHeapTier {
+
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapTier.class);
+
+    private final OffHeapStore store;
+    private final Set<String> groups;
+    private final Duration sweepInterval;
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * @param store The off-heap store, or {@code null} to disable the tier.
+     * @param groups The names of the groups whose evicted entries are demoted.
+     * @param sweepInterval How often expired entries are dropped from the store, or {@code null} to never sweep.
+     */
+    public OffHeapTier(OffHeapStore store, Set<String> groups, Duration sweepInterval) {
+        this.store = store;
+        this.groups = Set.copyOf(groups);
+        this.sweepInterval = sweepInterval;
+    }
+
+    /**
+     * @return a tier that demotes nothing.
+     */
+    public static OffHeapTier disabled() {
+        return new OffHeapTier(null, Set.of(), null);
+    }
+
+    /**
+     * @return {@code true} if entries of the group are demoted to this tier.
+     */
+    public boolean covers(CacheGroup group) {
+        return store != null && groups.contains(group.name());
+    }
+
+    /**
+     * Builds a cache whose size evictions are demoted to this tier.
+     */
+    public Cache<CacheKey, Object> build(Caffeine<CacheKey, Object> builder) {
+        if (store == null) {
+            return builder.build();
+        }
+        // The listener needs the cache it is built into
+        AtomicReference<Cache<CacheKey, Object>> cache = new AtomicReference<>();
+        cache.set(builder
+                .evictionListener((CacheKey key, Object value, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE && key != null && value != null) {
+                        demote(cache.get(), key, value);
+                    }
+                })
+                .build());
+        return cache.get();
+    }
+
+    /**
+     * Moves an entry evicted from the given cache into this tier, keeping its remaining time to live.
+     * Must be called while the entry's deadline is still known to the cache, i.e. from a synchronous
+     * eviction listener.
+     */
+    public void demote(Cache<CacheKey, Object> cache, CacheKey key, Object value) {
+        if (!covers(key.group())) {
+            return;
+        }
+        store.put(key, value, remainingNanos(cache, key));
+    }
+
+    /**
+     * Moves an entry of this tier back into the given cache with its remaining time to live.
+     * If the key was written on the heap meanwhile, that value is kept and the off-heap copy dropped.
+     *
+     * @param lookupKey The key to promote, which may be a lookup key.
+     * @return the entry now in the cache, or {@code null} if this tier does not hold the key.
+     */
+    public OffHeapStore.Entry promote(Cache<CacheKey, Object> cache, CacheKey lookupKey) {
+        if (!covers(lookupKey.group())) {
+            return null;
+        }
+        OffHeapStore.Entry entry = store.remove(lookupKey);
+        if (entry == null) {
+            return null;
+        }
+        Optional<Policy.VarExpiration<CacheKey, Object>> expiration = cache.policy().expireVariably();
+        Object present = expiration.isPresent()
+                ? expiration.get().putIfAbsent(entry.key(), entry.value(), entry.remainingNanos(), TimeUnit.NANOSECONDS)
+                : cache.asMap().putIfAbsent(entry.key(), entry.value());
+        return present == null ? entry : new OffHeapStore.Entry(entry.key(), present, remainingNanos(cache, entry.key()));
+    }
+
+    private static long remainingNanos(Cache<CacheKey, Object> cache, CacheKey key) {
+        return cache.policy().expireVariably()
+                .flatMap(expiration -> expiration.getExpiresAfter(key))
+                .map(Duration::toNanos)
+                .orElseGet(() -> key.group().ttlNanos(key));
+    }
+
+    /**
+     * Drops the copy of a key held by this tier, after it was written or invalidated on the heap.
+     */
+    public void discard(CacheKey key) {
+        if (covers(key.group())) {
+            store.invalidate(key);
+        }
+    }
+
+    /**
+     * Drops the entries of a group whose sub-key matches the filter.
+     */
+    public void discardAll(CacheGroup group, Predicate<String> subKeyFilter) {
+        if (covers(group)) {
+            store.invalidateAll(key -> key.group() == group && subKeyFilter.test(key.subKey()));
+        }
+    }
+
+    /**
+     * @return the off-heap store, or {@code null} if the tier is disabled.
+     */
+    public OffHeapStore store() {
+        return store;
+    }
+
+    public void start() {
+        if (store == null || sweepInterval == null) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-offheap-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalNanos = sweepInterval.toNanos();
+        sweeper.scheduleWithFixedDelay(this::sweep, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+        logger.info("Off-heap tier of {} bytes enabled for groups {}", store.capacityBytes(), groups);
+    }
+
+    public void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    private void sweep() {
+        int swept = store.sweep();
+        logger.debug("Swept {} expired off-heap entries", swept);
+    }
+}
@@ -0,0 +1,87 @@
+package com.biswamit.cache.tier;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps value classes to their {@link ValueSerializer}. Each serializer is identified in the
+ * binary form by a one-byte tag, its position in registration order.
+ */
+public class SerializerRegistry {
+
+    private final List<ValueSerializer<?>> serializers = new ArrayList<>();
+    private final Map<Class<?>, Integer> tags = new HashMap<>();
+
+    public SerializerRegistry(List<? extends ValueSerializer<?>> serializers) {
+        for (ValueSerializer<?> serializer : serializers) {
+            register(serializer);
+        }
+    }
+
+    /**
+     * @return a registry with the {@link ModelSerializers#defaults() default} serializers.
+     */
+    public static SerializerRegistry withDefaults() {
+        return new SerializerRegistry(ModelSerializers.defaults());
+    }
+
+    private void register(ValueSerializer<?> serializer) {
+        if (serializers.size() > Byte.MAX_VALUE) {
+            throw new IllegalStateException("Too many value serializers");
+        }
+        if (tags.putIfAbsent(serializer.type(), serializers.size()) == null) {
+            serializers.add(serializer);
+        }
+    }
+
+    /**
+     * @return {@code true} if values of this exact class can be serialized.
+     */
+    public boolean supports(Object value) {
+        return tags.containsKey(value.getClass());
+    }
+
+    /**
+     * Writes the tag of the value's serializer followed by the value.
+     *
+     * @throws IllegalArgumentException if no serializer is registered for the value's class.
+     */
+    @SuppressWarnings("unchecked")
+    public void write(Object value, DataOutput out) throws IOException {
+        Integer tag = tags.get(value.getClass());
+        if (tag == null) {
+            throw new IllegalArgumentException("No serializer registered for " + value.getClass().getName());
+        }
+        out.writeByte(tag);
+        ((ValueSerializer<Object>) serializers.get(tag)).write(value, out);
+    }
+
+    /**
+     * Reads a value written by {@link #write(Object, DataOutput)}.
+     */
+    public Object read(DataInput in) throws IOException {
+        return read(in.readByte(), in);
+    }
+
+    /**
+     * Reads the value following a tag that has already been consumed.
+     */
+    public Object read(int tag, DataInput in) throws IOException {
+        if (tag < 0 || tag >= serializers.size()) {
+            throw new IOException("Unknown value serializer tag " + tag);
+        }
+        return serializers.get(tag).read(in);
+    }
+
+    /**
+     * @return the registered value classes, indexed by tag.
+     */
+    public List<Class<?>> types() {
+        return serializers.stream().<Class<?>>map(ValueSerializer::type).toList();
+    }
+}
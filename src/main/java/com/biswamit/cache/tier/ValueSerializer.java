@@ -0,0 +1,23 @@
+package com.biswamit.cache.tier;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes cached values of one type to a compact binary form and reads them back, so they can be
+ * kept outside the Java heap. Register custom implementations as Spring beans to tier other types.
+ *
+ * @param <T> The type of value handled.
+ */
+public interface ValueSerializer<T> {
+
+    /**
+     * @return the exact class of the values this serializer handles.
+     */
+    Class<T> type();
+
+    void write(T value, DataOutput out) throws IOException;
+
+    T read(DataInput in) throws IOException;
+}
@@ -1,7 +1,7 @@
 package com.biswamit.cache;
 
-import com.biswamit.cache.config.CacheTtlProperties;
 import com.biswamit.cache.config.PerKeyExpiryPolicy;
+import com.biswamit.cache.key.CacheKey;
 import com.biswamit.cache.model.TenantMapper;
 import com.biswamit.cache.model.TenantEventSetting;
 import com.biswamit.cache.service.TimeExpiringCacheService;
@@ -52,9 +52,9 @@ class TimeExpiringPerKeyTTLConfigAppTest {
 
         @Bean
         @Primary // Ensures this bean is used instead of the production one
-        public Cache<String, Object> testCache(CacheTtlProperties ttlProperties) {
+        public Cache<CacheKey, Object> testCache() {
             return Caffeine.newBuilder()
-                    .expireAfter(new PerKeyExpiryPolicy(ttlProperties))
+                    .expireAfter(new PerKeyExpiryPolicy())
                     .ticker(ticker) // Use the fake ticker
                     .build();
         }
@@ -64,7 +64,7 @@ class TimeExpiringPerKeyTTLConfigAppTest {
     private TimeExpiringCacheService cacheService;
 
     @Autowired
-    private Cache<String, Object> cache;
+    private Cache<CacheKey, Object> cache;
 
     @Autowired
     private FakeTicker ticker;
@@ -0,0 +1,114 @@
+package com.biswamit.cache.bus;
+
+import com.biswamit.cache.config.CacheSegments;
+import com.biswamit.cache.config.CacheTtlProperties;
+import com.biswamit.cache.config.PerKeyExpiryPolicy;
+import com.biswamit.cache.config.TtlRuleIndex;
+import com.biswamit.cache.config.ValueCanonicalizer;
+import com.biswamit.cache.event.RemovalEvents;
+import com.biswamit.cache.key.CacheGroupRegistry;
+import com.biswamit.cache.key.GroupKeyIndex;
+import com.biswamit.cache.service.LoadCoalescer;
+import com.biswamit.cache.service.TimeExpiringCacheService;
+import com.biswamit.cache.stats.CacheStatistics;
+import com.biswamit.cache.tier.OffHeapTier;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for publishing, coalescing and applying cross-node invalidations.
+ */
+class InvalidationBusTest {
+
+    private static final String GROUP = "odyssey.tenant.mapper";
+
+    private static TimeExpiringCacheService node(InvalidationBus bus) {
+        GroupKeyIndex groupKeyIndex = new GroupKeyIndex();
+        CacheSegments segments = new CacheSegments(Caffeine.newBuilder()
+                .expireAfter(new PerKeyExpiryPolicy())
+                .removalListener(groupKeyIndex)
+                .build());
+        return new TimeExpiringCacheService(segments,
+                new CacheGroupRegistry(TtlRuleIndex.compile(new CacheTtlProperties())), groupKeyIndex,
+                new CacheStatistics(groupKeyIndex), OffHeapTier.disabled(), bus,
+                ForkJoinPool.commonPool(), LoadCoalescer.disabled(), new RemovalEvents(),
+                ValueCanonicalizer.disabled());
+    }
+
+    @Test
+    @DisplayName("Should coalesce a burst of writes and invalidate the copies held by other nodes")
+    void testPublish_CoalescesAndInvalidatesPeers() throws IOException {
+        LoopbackTransport.Hub hub = new LoopbackTransport.Hub();
+        List<byte[]> sent = new CopyOnWriteArrayList<>();
+        InvalidationBus busA = new InvalidationBus(new LoopbackTransport(hub) {
+            @Override
+            public void send(byte[] payload) {
+                sent.add(payload);
+                super.send(payload);
+            }
+        }, Duration.ofHours(1), 1_000);
+        InvalidationBus busB = new InvalidationBus(new LoopbackTransport(hub), Duration.ofHours(1), 1_000);
+        TimeExpiringCacheService nodeA = node(busA);
+        TimeExpiringCacheService nodeB = node(busB);
+        busA.start();
+        busB.start();
+        try {
+            nodeB.put(GROUP, "tenant-1", "gateway-v1");
+            nodeB.put(GROUP, "tenant-2", "gateway-v1");
+            nodeB.put("matrix.event.setting", "tenant-1", "settings");
+            busB.flush();
+            assertThat(nodeB.get(GROUP, "tenant-1", String.class)).contains("gateway-v1");
+
+            for (int i = 0; i < 100; i++) {
+                nodeA.put(GROUP, "tenant-1", "gateway-v" + i);
+                nodeA.invalidate(GROUP, "tenant-2");
+            }
+            busA.flush();
+
+            assertThat(sent).hasSize(1);
+            assertThat(nodeB.get(GROUP, "tenant-1", String.class)).isEmpty();
+            assertThat(nodeB.get(GROUP, "tenant-2", String.class)).isEmpty();
+            assertThat(nodeA.get(GROUP, "tenant-1", String.class)).contains("gateway-v99");
+
+            nodeA.invalidateGroup("matrix.event.setting");
+            busA.flush();
+            assertThat(nodeB.get("matrix.event.setting", "tenant-1", String.class)).isEmpty();
+        } finally {
+            busA.stop();
+            busB.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Should deliver batches between nodes over multicast on localhost")
+    void testMulticastTransport_DeliversOnLocalhost() throws Exception {
+        InetSocketAddress group = new InetSocketAddress(InetAddress.getByName("239.255.42.98"), 4447);
+        CountDownLatch received = new CountDownLatch(1);
+        try (MulticastTransport sender = new MulticastTransport(group, MulticastTransport.loopbackInterface(), 0);
+             MulticastTransport receiver = new MulticastTransport(group, MulticastTransport.loopbackInterface(), 0)) {
+            receiver.subscribe(payload -> {
+                if (new String(payload).equals("batch")) {
+                    received.countDown();
+                }
+            });
+            for (int attempt = 0; attempt < 10 && received.getCount() > 0; attempt++) {
+                sender.send("batch".getBytes());
+                received.await(100, TimeUnit.MILLISECONDS);
+            }
+        }
+        assertThat(received.getCount()).isZero();
+    }
+}
@@ -0,0 +1,149 @@
+package com.biswamit.cache.config;
+
+import com.biswamit.cache.FakeTicker;
+import com.biswamit.cache.bus.InvalidationBus;
+import com.biswamit.cache.event.RemovalEvents;
+import com.biswamit.cache.key.CacheGroupRegistry;
+import com.biswamit.cache.key.CacheKey;
+import com.biswamit.cache.key.GroupKeyIndex;
+import com.biswamit.cache.service.GroupLoader;
+import com.biswamit.cache.service.LoadCoalescer;
+import com.biswamit.cache.service.TimeExpiringCacheService;
+import com.biswamit.cache.stats.CacheStatistics;
+import com.biswamit.cache.tier.OffHeapTier;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for reloading the TTL rules at runtime.
+ */
+class TtlConfigReloaderTest {
+
+    private static final String GROUP = "matrix.event.setting";
+
+    @TempDir
+    Path tempDir;
+
+    private FakeTicker ticker;
+    private CacheGroupRegistry groupRegistry;
+    private TtlConfigReloader reloader;
+    private TimeExpiringCacheService cacheService;
+
+    @BeforeEach
+    void setUp() {
+        CacheTtlProperties properties = new CacheTtlProperties();
+        properties.getKeys().put(GROUP, Duration.ofMinutes(10));
+        ticker = new FakeTicker();
+        GroupKeyIndex groupKeyIndex = new GroupKeyIndex();
+        Cache<CacheKey, Object> cache = Caffeine.newBuilder()
+                .expireAfter(new PerKeyExpiryPolicy())
+                .ticker(ticker)
+                .removalListener(groupKeyIndex)
+                .build();
+        CacheSegments segments = new CacheSegments(cache);
+        groupRegistry = new CacheGroupRegistry(TtlRuleIndex.compile(properties));
+        reloader = new TtlConfigReloader(groupRegistry, segments, groupKeyIndex);
+        cacheService = new TimeExpiringCacheService(segments, groupRegistry, groupKeyIndex,
+                new CacheStatistics(groupKeyIndex), OffHeapTier.disabled(), InvalidationBus.disabled(),
+                ForkJoinPool.commonPool(), LoadCoalescer.disabled(), new RemovalEvents(),
+                ValueCanonicalizer.disabled());
+    }
+
+    private Path writeRules(String... lines) throws IOException {
+        return Files.write(tempDir.resolve("cache-ttl.properties"), List.of(lines));
+    }
+
+    @Test
+    @DisplayName("Should apply reloaded rules to new writes and keep existing deadlines by default")
+    void testReload_AppliesToNewWrites() throws IOException {
+        cacheService.put(GROUP, "tenant-1", "old-rules");
+        reloader.reload(writeRules("app.cache.ttl.keys[matrix.event.setting]=2m"), false);
+        cacheService.put(GROUP, "tenant-2", "new-rules");
+
+        ticker.advance(Duration.ofMinutes(3));
+
+        assertThat(cacheService.get(GROUP, "tenant-1", String.class)).contains("old-rules");
+        assertThat(cacheService.get(GROUP, "tenant-2", String.class)).isEmpty();
+        assertThat(groupRegistry.group(GROUP).groupNanos()).isEqualTo(Duration.ofMinutes(2).toNanos());
+    }
+
+    @Test
+    @DisplayName("Should move the deadline of existing entries when re-deadlining")
+    void testReload_Redeadline() throws IOException {
+        cacheService.put(GROUP, "tenant-1", "value");
+        cacheService.put("tracing", "matrix.otel", true);
+        ticker.advance(Duration.ofMinutes(1));
+
+        // 10m -> 4m: written 1m ago, so 3m remain; the default TTL stays at 30m
+        reloader.reload(writeRules("app.cache.ttl.keys[matrix.event.setting]=4m"), true);
+
+        ticker.advance(Duration.ofMinutes(2).plusSeconds(59));
+        assertThat(cacheService.get(GROUP, "tenant-1", String.class)).contains("value");
+        ticker.advance(Duration.ofSeconds(2));
+        assertThat(cacheService.get(GROUP, "tenant-1", String.class)).isEmpty();
+        assertThat(cacheService.get("tracing", "matrix.otel", Boolean.class)).contains(true);
+    }
+
+    @Test
+    @DisplayName("Should move cached absences only by the change of the negative TTL when re-deadlining")
+    void testReload_RedeadlineNegativeEntries() throws IOException {
+        reloader.reload(writeRules(
+                "app.cache.ttl.keys[matrix.event.setting]=1m",
+                "app.cache.ttl.negative[matrix.event.setting]=30s"), false);
+        AtomicInteger loads = new AtomicInteger();
+        GroupLoader<String> loader = subKey -> {
+            loads.incrementAndGet();
+            return null;
+        };
+        assertThat(cacheService.get(GROUP, "missing", String.class, loader)).isEmpty();
+
+        // 1m -> 1h must not keep the absence for longer; 30s -> 20s leaves 20s from the write
+        reloader.reload(writeRules(
+                "app.cache.ttl.keys[matrix.event.setting]=1h",
+                "app.cache.ttl.negative[matrix.event.setting]=20s"), true);
+
+        ticker.advance(Duration.ofSeconds(19));
+        assertThat(cacheService.get(GROUP, "missing", String.class, loader)).isEmpty();
+        assertThat(loads).hasValue(1);
+        ticker.advance(Duration.ofSeconds(2));
+        assertThat(cacheService.get(GROUP, "missing", String.class, loader)).isEmpty();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should stop serving stale entries once a reload removes the grace window")
+    void testReload_RemovesGrace() throws IOException {
+        reloader.reload(writeRules(
+                "app.cache.ttl.keys[matrix.event.setting]=1m",
+                "app.cache.ttl.expiry[matrix.event.setting].stale-while-revalidate=5m"), false);
+        cacheService.put(GROUP, "tenant-1", "value");
+        cacheService.put(GROUP, "tenant-2", "value");
+        ticker.advance(Duration.ofMinutes(2));
+        assertThat(cacheService.get(GROUP, "tenant-1", String.class)).isEmpty();
+
+        // 1m past its TTL, so without the grace window tenant-1 has expired
+        reloader.reload(writeRules("app.cache.ttl.keys[matrix.event.setting]=1m"), false);
+        assertThat(cacheService.get(GROUP, "tenant-1", String.class)).isEmpty();
+
+        // An entry written after the reload keeps its TTL and gets no grace
+        cacheService.put(GROUP, "tenant-2", "fresh");
+        ticker.advance(Duration.ofSeconds(59));
+        assertThat(cacheService.get(GROUP, "tenant-2", String.class)).contains("fresh");
+        ticker.advance(Duration.ofSeconds(2));
+        assertThat(cacheService.get(GROUP, "tenant-2", String.class)).isEmpty();
+    }
+}
@@ -0,0 +1,92 @@
+package com.biswamit.cache.config;
+
+import com.biswamit.cache.key.CacheGroupRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the compiled TTL rule index.
+ */
+class TtlRuleIndexTest {
+
+    private TtlRuleIndex index;
+
+    @BeforeEach
+    void setUp() {
+        CacheTtlProperties properties = new CacheTtlProperties();
+        properties.setDefaultTtl(Duration.ofMinutes(30));
+        properties.getKeys().put("matrix.event.setting", Duration.ofMinutes(10));
+        properties.getKeys().put("matrix.event.setting.cbec5243-e668-467e-8b67-d236510181b1", Duration.ofMinutes(5));
+        properties.getKeys().put("tracing", Duration.ofMinutes(5));
+        properties.getKeys().put("tracing.matrix.otel", Duration.ofMinutes(3));
+        index = TtlRuleIndex.compile(properties);
+    }
+
+    @Test
+    @DisplayName("Should resolve the specific sub-key rule first")
+    void testResolve_SpecificKey() {
+        assertThat(index.resolveNanos("tracing:matrix.otel")).isEqualTo(Duration.ofMinutes(3).toNanos());
+        assertThat(index.resolveNanos("matrix.event.setting:cbec5243-e668-467e-8b67-d236510181b1"))
+                .isEqualTo(Duration.ofMinutes(5).toNanos());
+    }
+
+    @Test
+    @DisplayName("Should fall back to the group rule, then the default")
+    void testResolve_GroupThenDefault() {
+        assertThat(index.resolveNanos("matrix.event.setting:a1b2c3d4")).isEqualTo(Duration.ofMinutes(10).toNanos());
+        assertThat(index.resolveNanos("tracing:matrix")).isEqualTo(Duration.ofMinutes(5).toNanos());
+        assertThat(index.resolveNanos("tracing")).isEqualTo(Duration.ofMinutes(5).toNanos());
+        assertThat(index.resolveNanos("matrix:event")).isEqualTo(Duration.ofMinutes(30).toNanos());
+        assertThat(index.resolveNanos("unconfigured.group")).isEqualTo(Duration.ofMinutes(30).toNanos());
+    }
+
+    @Test
+    @DisplayName("Should let the most specific of the matching glob and exact rules win")
+    void testResolve_WildcardsMostSpecificWins() {
+        CacheTtlProperties properties = new CacheTtlProperties();
+        properties.setDefaultTtl(Duration.ofMinutes(30));
+        properties.getKeys().put("matrix.*", Duration.ofMinutes(20));
+        properties.getKeys().put("matrix.event.setting", Duration.ofMinutes(10));
+        properties.getKeys().put("matrix.event.setting.eu-*", Duration.ofMinutes(4));
+        properties.getKeys().put("matrix.event.setting.eu-1", Duration.ofMinutes(1));
+        properties.getKeys().put("*.setting.*", Duration.ofMinutes(7));
+        properties.getKeys().put("odyssey.tenant.mapper.tenant-??", Duration.ofMinutes(2));
+        for (int i = 0; i < 2000; i++) {
+            properties.getKeys().put("odyssey.tenant.mapper.tenant-" + i + "-*", Duration.ofSeconds(i + 1));
+        }
+        TtlRuleIndex wildcardIndex = TtlRuleIndex.compile(properties);
+
+        assertThat(wildcardIndex.resolveNanos("matrix.otel:flag")).isEqualTo(Duration.ofMinutes(20).toNanos());
+        assertThat(wildcardIndex.resolveNanos("matrix.event.setting:a1b2c3d4")).isEqualTo(Duration.ofMinutes(10).toNanos());
+        assertThat(wildcardIndex.resolveNanos("matrix.event.setting:eu-7")).isEqualTo(Duration.ofMinutes(4).toNanos());
+        assertThat(wildcardIndex.resolveNanos("matrix.event.setting:eu-1")).isEqualTo(Duration.ofMinutes(1).toNanos());
+        assertThat(wildcardIndex.resolveNanos("tenant.setting:a1b2c3d4")).isEqualTo(Duration.ofMinutes(7).toNanos());
+        assertThat(wildcardIndex.resolveNanos("odyssey.tenant.mapper:tenant-42")).isEqualTo(Duration.ofMinutes(2).toNanos());
+        assertThat(wildcardIndex.resolveNanos("odyssey.tenant.mapper:tenant-420")).isEqualTo(Duration.ofMinutes(30).toNanos());
+        assertThat(wildcardIndex.resolveNanos("odyssey.tenant.mapper:tenant-1234-eu")).isEqualTo(Duration.ofSeconds(1235).toNanos());
+        assertThat(wildcardIndex.resolveNanos("unconfigured.group")).isEqualTo(Duration.ofMinutes(30).toNanos());
+
+        CacheGroupRegistry registry = new CacheGroupRegistry(wildcardIndex);
+        PerKeyExpiryPolicy policy = new PerKeyExpiryPolicy();
+        assertThat(registry.group("matrix.otel").groupNanos()).isEqualTo(Duration.ofMinutes(20).toNanos());
+        assertThat(policy.resolveNanos(registry.key("matrix.event.setting", "a1b2c3d4")))
+                .isEqualTo(Duration.ofMinutes(10).toNanos());
+        assertThat(policy.resolveNanos(registry.key("matrix.event.setting", "eu-7"))).isEqualTo(Duration.ofMinutes(4).toNanos());
+        assertThat(policy.resolveNanos(registry.key("odyssey.tenant.mapper", "tenant-1234-eu")))
+                .isEqualTo(Duration.ofSeconds(1235).toNanos());
+    }
+
+    @Test
+    @DisplayName("Should refuse rules whose wildcards expand into too many automaton states")
+    void testCompile_RejectsStateExplosion() {
+        CacheTtlProperties properties = new CacheTtlProperties();
+        properties.getKeys().put("*a" + "?".repeat(20), Duration.ofMinutes(1));
+        assertThatThrownBy(() -> TtlRuleIndex.compile(properties)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
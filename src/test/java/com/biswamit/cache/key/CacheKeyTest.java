@@ -0,0 +1,85 @@
+package com.biswamit.cache.key;
+
+import com.biswamit.cache.config.CacheTtlProperties;
+import com.biswamit.cache.config.TtlRuleIndex;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the structured cache keys and their interned groups.
+ */
+class CacheKeyTest {
+
+    private static final String GROUP = "odyssey.tenant.mapper";
+    private static final String TENANT_ID = "cbec5243-e668-467e-8b67-d236510181b1";
+
+    private CacheGroupRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        CacheTtlProperties properties = new CacheTtlProperties();
+        properties.getKeys().put(GROUP, Duration.ofMinutes(12));
+        properties.getKeys().put(GROUP + "." + TENANT_ID, Duration.ofMinutes(10));
+        registry = new CacheGroupRegistry(TtlRuleIndex.compile(properties));
+    }
+
+    @Test
+    @DisplayName("Should store canonical UUID sub-keys compactly and render them back")
+    void testUuidSubKey_RoundTrip() {
+        CacheKey key = registry.key(GROUP, TENANT_ID);
+
+        assertThat(key.isUuid()).isTrue();
+        assertThat(key.subKey()).isEqualTo(TENANT_ID);
+        assertThat(key).hasToString(GROUP + ":" + TENANT_ID);
+        assertThat(registry.key(GROUP, "CBEC5243-E668-467E-8B67-D236510181B1").isUuid()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should treat lookup keys as equal to the stored keys they probe for")
+    void testLookupKey_EqualsStoredKey() {
+        CacheKey stored = registry.key(GROUP, TENANT_ID);
+        CacheKey lookup = registry.lookupKey(GROUP, TENANT_ID);
+
+        assertThat(lookup).isEqualTo(stored).hasSameHashCodeAs(stored);
+        assertThat(registry.lookupKey(GROUP, "matrix.otel")).isEqualTo(registry.key(GROUP, "matrix.otel"));
+        assertThat(registry.lookupKey(GROUP, null)).isEqualTo(registry.key(GROUP));
+        assertThat(registry.group(GROUP)).isSameAs(stored.group());
+    }
+
+    @Test
+    @DisplayName("Should resolve the TTL from the group reference")
+    void testGroup_ResolvesTtl() {
+        CacheGroup group = registry.group(GROUP);
+
+        assertThat(group.ttlNanos(registry.key(GROUP, TENANT_ID))).isEqualTo(Duration.ofMinutes(10).toNanos());
+        assertThat(group.ttlNanos(registry.key(GROUP, "a1b2c3d4-e5f6-4a7b-8c9d-0e1f2a3b4c5d")))
+                .isEqualTo(Duration.ofMinutes(12).toNanos());
+        assertThat(group.ttlNanos(registry.key(GROUP))).isEqualTo(Duration.ofMinutes(12).toNanos());
+    }
+
+    @Test
+    @DisplayName("Should not index a key whose entry was removed before it was added")
+    void testGroupKeyIndex_DropsKeyRemovedBeforeAdd() {
+        Set<CacheKey> cached = new HashSet<>();
+        GroupKeyIndex index = new GroupKeyIndex();
+        index.attach(cached::contains);
+        CacheKey removed = registry.key(GROUP, TENANT_ID);
+        CacheKey live = registry.key(GROUP, "matrix.otel");
+        cached.add(live);
+
+        // The removal notification overtakes the writer's add()
+        index.onRemoval(removed, "value", RemovalCause.EXPIRED);
+        index.add(removed);
+        index.add(live);
+
+        assertThat(index.keys(registry.group(GROUP))).containsExactly(live);
+    }
+}
@@ -0,0 +1,747 @@
+package com.biswamit.cache.service;
+
+import com.biswamit.cache.FakeTicker;
+import com.biswamit.cache.bus.InvalidationBus;
+import com.biswamit.cache.config.CacheSegments;
+import com.biswamit.cache.config.CacheTtlProperties;
+import com.biswamit.cache.config.MigratedEntries;
+import com.biswamit.cache.config.PerKeyExpiryPolicy;
+import com.biswamit.cache.config.TtlRuleIndex;
+import com.biswamit.cache.config.ValueCanonicalizer;
+import com.biswamit.cache.event.RemovalEvent;
+import com.biswamit.cache.event.RemovalEvents;
+import com.biswamit.cache.event.RemovalSubscription;
+import com.biswamit.cache.key.CacheGroupRegistry;
+import com.biswamit.cache.key.CacheKey;
+import com.biswamit.cache.key.GroupKeyIndex;
+import com.biswamit.cache.model.TenantEventSetting;
+import com.biswamit.cache.model.TenantMapper;
+import com.biswamit.cache.stats.CacheStatistics;
+import com.biswamit.cache.stats.GroupStatsSnapshot;
+import com.biswamit.cache.tier.OffHeapStore;
+import com.biswamit.cache.tier.OffHeapTier;
+import com.biswamit.cache.tier.SerializerRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the TimeExpiringCacheService API, using a cache built without a Spring context.
+ */
+class TimeExpiringCacheServiceTest {
+
+    private static final String TENANT_MAPPER_GROUP = "odyssey.tenant.mapper";
+    private static final String TENANT_ID = "a1b2c3d4-e5f6-4a7b-8c9d-0e1f2a3b4c5d";
+
+    private FakeTicker ticker;
+    private Cache<CacheKey, Object> cache;
+    private GroupKeyIndex groupKeyIndex;
+    private CacheStatistics statistics;
+    private RemovalEvents removalEvents;
+    private MigratedEntries migratedEntries;
+    private CacheGroupRegistry groupRegistry;
+    private TimeExpiringCacheService cacheService;
+
+    @BeforeEach
+    void setUp() {
+        CacheTtlProperties properties = new CacheTtlProperties();
+        properties.getKeys().put(TENANT_MAPPER_GROUP, Duration.ofMinutes(12));
+        ticker = new FakeTicker();
+        groupKeyIndex = new GroupKeyIndex();
+        statistics = new CacheStatistics(groupKeyIndex);
+        removalEvents = new RemovalEvents();
+        migratedEntries = new MigratedEntries();
+        cache = newCacheBuilder().build();
+        groupRegistry = new CacheGroupRegistry(TtlRuleIndex.compile(properties));
+        cacheService = newService(new CacheSegments(cache), OffHeapTier.disabled(), LoadCoalescer.disabled());
+    }
+
+    private TimeExpiringCacheService newService(CacheSegments segments, OffHeapTier offHeapTier, LoadCoalescer loadCoalescer) {
+        return newService(segments, offHeapTier, loadCoalescer, ValueCanonicalizer.disabled());
+    }
+
+    private TimeExpiringCacheService newService(CacheSegments segments, OffHeapTier offHeapTier, LoadCoalescer loadCoalescer,
+                                                ValueCanonicalizer valueCanonicalizer) {
+        return newService(segments, offHeapTier, loadCoalescer, valueCanonicalizer, ForkJoinPool.commonPool());
+    }
+
+    private TimeExpiringCacheService newService(CacheSegments segments, OffHeapTier offHeapTier, LoadCoalescer loadCoalescer,
+                                                ValueCanonicalizer valueCanonicalizer, Executor loadExecutor) {
+        return new TimeExpiringCacheService(segments, groupRegistry, groupKeyIndex, statistics, offHeapTier,
+                InvalidationBus.disabled(), loadExecutor, loadCoalescer, removalEvents, valueCanonicalizer);
+    }
+
+    private Caffeine<CacheKey, Object> newCacheBuilder() {
+        return Caffeine.newBuilder()
+                .expireAfter(new PerKeyExpiryPolicy())
+                .ticker(ticker)
+                .executor(Runnable::run) // deliver removal notifications synchronously
+                .removalListener((CacheKey key, Object value, RemovalCause cause) -> {
+                    if (migratedEntries.isMove(key, value, cause)) {
+                        return;
+                    }
+                    groupKeyIndex.onRemoval(key, value, cause);
+                    statistics.onRemoval(key, value, cause);
+                    removalEvents.onRemoval(key, value, cause);
+                });
+    }
+
+    private static TenantMapper tenantMapper(String tenantId) {
+        return new TenantMapper(tenantId, "odsyId123", "us-east-1", "https://odsyId123.qa.ingest.apps.avenger.com/ingest/odsyId123/events", true);
+    }
+
+    @Test
+    @DisplayName("Should load a missing value once and serve it from the cache afterwards")
+    void testGet_WithLoader_LoadsOnMiss() {
+        AtomicInteger loads = new AtomicInteger();
+        GroupLoader<TenantMapper> loader = subKey -> {
+            loads.incrementAndGet();
+            return tenantMapper(subKey);
+        };
+
+        Optional<TenantMapper> first = cacheService.get(TENANT_MAPPER_GROUP, TENANT_ID, TenantMapper.class, loader);
+        Optional<TenantMapper> second = cacheService.get(TENANT_MAPPER_GROUP, TENANT_ID, TenantMapper.class, loader);
+
+        assertThat(first).contains(tenantMapper(TENANT_ID));
+        assertThat(second).isEqualTo(first);
+        assertThat(loads).hasValue(1);
+
+        // After the 12m group TTL the value is loaded again
+        ticker.advance(Duration.ofMinutes(12).plusSeconds(1));
+        cacheService.get(TENANT_MAPPER_GROUP, TENANT_ID, TenantMapper.class, loader);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should allow only one load in flight per key under concurrent misses")
+    void testGet_WithLoader_StampedeProtection() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        GroupLoader<TenantMapper> slowLoader = subKey -> {
+            loads.incrementAndGet();
+            Thread.sleep(50);
+            return tenantMapper(subKey);
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Optional<TenantMapper>>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cacheService.get(TENANT_MAPPER_GROUP, TENANT_ID, TenantMapper.class, slowLoader);
+                }));
+            }
+            start.countDown();
+            for (Future<Optional<TenantMapper>> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).contains(tenantMapper(TENANT_ID));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should use the registered group loader and record load failures")
+    void testGet_WithRegisteredLoader() {
+        cacheService.registerLoader(TENANT_MAPPER_GROUP, subKey -> {
+            if (subKey.equals("unknown")) {
+                throw new IllegalStateException("backend unavailable");
+            }
+            return tenantMapper(subKey);
+        });
+
+        assertThat(cacheService.get(TENANT_MAPPER_GROUP, TENANT_ID, TenantMapper.class)).contains(tenantMapper(TENANT_ID));
+        assertThatThrownBy(() -> cacheService.get(TENANT_MAPPER_GROUP, "unknown", TenantMapper.class))
+                .isInstanceOf(IllegalStateException.class);
+        GroupStatsSnapshot stats = statistics.snapshot(groupRegistry.group(TENANT_MAPPER_GROUP));
+        assertThat(stats.loadSuccessCount()).isEqualTo(1);
+        assertThat(stats.loadFailureCount()).isEqualTo(1);
+
+        cacheService.unregisterLoader(TENANT_MAPPER_GROUP);
+        assertThat(cacheService.get(TENANT_MAPPER_GROUP, "other", TenantMapper.class)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should load all misses of a batch with a single bulk call")
+    void testGetAll_LoadsMissesInOneCall() {
+        String cachedId = "cbec5243-e668-467e-8b67-d236510181b1";
+        cacheService.putAll(TENANT_MAPPER_GROUP, Map.of(cachedId, tenantMapper(cachedId)));
+        AtomicInteger bulkCalls = new AtomicInteger();
+        GroupLoader<TenantMapper> loader = new GroupLoader<>() {
+            @Override
+            public TenantMapper load(String subKey) {
+                throw new AssertionError("single-key load should not be used");
+            }
+
+            @Override
+            public Map<String, TenantMapper> loadAll(Set<String> subKeys) {
+                bulkCalls.incrementAndGet();
+                assertThat(subKeys).containsExactlyInAnyOrder(TENANT_ID, "tenant-2");
+                return Map.of(TENANT_ID, tenantMapper(TENANT_ID));
+            }
+        };
+
+        Map<String, TenantMapper> result = cacheService.getAll(TENANT_MAPPER_GROUP,
+                List.of(cachedId, TENANT_ID, "tenant-2"), TenantMapper.class, loader);
+
+        assertThat(bulkCalls).hasValue(1);
+        assertThat(result).containsOnlyKeys(cachedId, TENANT_ID);
+        assertThat(cacheService.getAll(TENANT_MAPPER_GROUP, List.of(cachedId, TENANT_ID, "tenant-2"), TenantMapper.class))
+                .isEqualTo(result);
+    }
+
+    @Test
+    @DisplayName("Should invalidate only the entries of the given group, optionally filtered by sub-key")
+    void testInvalidateGroup() {
+        cacheService.put(TENANT_MAPPER_GROUP, TENANT_ID, tenantMapper(TENANT_ID));
+        cacheService.put(TENANT_MAPPER_GROUP, "tenant-2", tenantMapper("tenant-2"));
+        cacheService.put("matrix.event.setting", TENANT_ID, "settings");
+
+        cacheService.invalidateGroup(TENANT_MAPPER_GROUP, subKey -> subKey.equals("tenant-2"));
+        assertThat(cacheService.get(TENANT_MAPPER_GROUP, "tenant-2", TenantMapper.class)).isEmpty();
+        assertThat(cacheService.get(TENANT_MAPPER_GROUP, TENANT_ID, TenantMapper.class)).isPresent();
+
+        cacheService.invalidateGroup(TENANT_MAPPER_GROUP);
+        assertThat(cacheService.get(TENANT_MAPPER_GROUP, TENANT_ID, TenantMapper.class)).isEmpty();
+        assertThat(cacheService.get("matrix.event.setting", TENANT_ID, String.class)).contains("settings");
+        assertThat(groupKeyIndex.keys(groupRegistry.group(TENANT_MAPPER_GROUP))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should drop expired entries from the group index")
+    void testGroupIndex_FollowsExpiry() {
+        cacheService.put(TENANT_MAPPER_GROUP, TENANT_ID, tenantMapper(TENANT_ID));
+        assertThat(groupKeyIndex.keys(groupRegistry.group(TENANT_MAPPER_GROUP))).hasSize(1);
+
+        ticker.advance(Duration.ofMinutes(13));
+        cache.cleanUp();
+
+        assertThat(groupKeyIndex.keys(groupRegistry.group(TENANT_MAPPER_GROUP))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should evict a bounded group independently of the other groups")
+    void testBoundedGroup_EvictsIndependently() {
+        CacheTtlProperties.GroupLimit limit = new CacheTtlProperties.GroupLimit();
+        limit.setMaxEntries(100L);
+        CacheSegments segments = new CacheSegments(cache, Map.of(TENANT_MAPPER_GROUP, limit),
+                groupLimit -> groupLimit.applyTo(newCacheBuilder()).build());
+        TimeExpiringCacheService boundedService = newService(segments, OffHeapTier.disabled(), LoadCoalescer.disabled());
+        for (int i = 0; i < 50; i++) {
+            boundedService.put("matrix.event.setting", "tenant-" + i, "settings-" + i);
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            boundedService.put(TENANT_MAPPER_GROUP, "tenant-" + i, tenantMapper("tenant-" + i));
+        }
+        Cache<CacheKey, Object> segment = segments.cacheFor(groupRegistry.group(TENANT_MAPPER_GROUP));
+        segment.cleanUp();
+
+        assertThat(segment).isNotSameAs(cache);
+        assertThat(segment.estimatedSize()).isLessThanOrEqualTo(100);
+        assertThat(cache.estimatedSize()).isEqualTo(50);
+        assertThat(groupKeyIndex.keys(groupRegistry.group(TENANT_MAPPER_GROUP))).hasSize((int) segment.estimatedSize());
+        assertThat(statistics.snapshot(groupRegistry.group(TENANT_MAPPER_GROUP)).removalCount(RemovalCause.SIZE))
+                .isEqualTo(1_000 - segment.estimatedSize());
+        assertThat(statistics.snapshot(groupRegistry.group("matrix.event.setting")).evictionCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should demote size evictions off-heap and promote them back with their remaining TTL")
+    void testOffHeapTier_DemotesAndPromotes() {
+        CacheTtlProperties.GroupLimit limit = new CacheTtlProperties.GroupLimit();
+        limit.setMaxEntries(10L);
+        OffHeapTier tier = new OffHeapTier(new OffHeapStore(64 * 1024, 256, SerializerRegistry.withDefaults(), ticker),
+                Set.of(TENANT_MAPPER_GROUP), null);
+        CacheSegments segments = new CacheSegments(cache, Map.of(TENANT_MAPPER_GROUP, limit),
+                groupLimit -> tier.build(groupLimit.applyTo(newCacheBuilder())));
+        TimeExpiringCacheService tieredService = newService(segments, tier, LoadCoalescer.disabled());
+        for (int i = 0; i < 20; i++) {
+            tieredService.put(TENANT_MAPPER_GROUP, "tenant-" + i, tenantMapper("tenant-" + i));
+        }
+        Cache<CacheKey, Object> segment = segments.cacheFor(groupRegistry.group(TENANT_MAPPER_GROUP));
+        segment.cleanUp();
+        assertThat(tier.store().size()).isEqualTo(20 - segment.estimatedSize());
+
+        ticker.advance(Duration.ofMinutes(5));
+        for (int i = 0; i < 20; i++) {
+            assertThat(tieredService.get(TENANT_MAPPER_GROUP, "tenant-" + i, TenantMapper.class))
+                    .contains(tenantMapper("tenant-" + i));
+            Optional<Duration> remaining = segment.policy().expireVariably().orElseThrow()
+                    .getExpiresAfter(groupRegistry.key(TENANT_MAPPER_GROUP, "tenant-" + i));
+            assertThat(remaining).hasValueSatisfying(ttl -> assertThat(ttl).isLessThanOrEqualTo(Duration.ofMinutes(7)));
+        }
+        assertThat(statistics.snapshot(groupRegistry.group(TENANT_MAPPER_GROUP)).missCount()).isZero();
+
+        // A write landing between a heap miss and the promotion wins over the older off-heap copy
+        CacheKey key = groupRegistry.key(TENANT_MAPPER_GROUP, "tenant-1");
+        tier.demote(segment, key, tenantMapper("tenant-1"));
+        segment.put(key, tenantMapper(TENANT_ID));
+        assertThat(tier.promote(segment, key).value()).isEqualTo(tenantMapper(TENANT_ID));
+        assertThat(segment.getIfPresent(key)).isEqualTo(tenantMapper(TENANT_ID));
+
+        tieredService.invalidateGroup(TENANT_MAPPER_GROUP);
+        assertThat(tier.store().size()).isZero();
+        assertThat(tieredService.get(TENANT_MAPPER_GROUP, "tenant-0", TenantMapper.class)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should spread deadlines by the group's jitter without exceeding its TTL")
+    void testJitter_SpreadsDeadlines() {
+        CacheTtlProperties properties = new CacheTtlProperties();
+        properties.getKeys().put(TENANT_MAPPER_GROUP, Duration.ofMinutes(12));
+        CacheTtlProperties.GroupExpiry expiry = new CacheTtlProperties.GroupExpiry();
+        expiry.setJitterPercent(20);
+        properties.getExpiry().put(TENANT_MAPPER_GROUP, expiry);
+        groupRegistry.reload(TtlRuleIndex.compile(properties));
+
+        Set<Duration> deadlines = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            cacheService.put(TENANT_MAPPER_GROUP, "tenant-" + i, tenantMapper("tenant-" + i));
+            deadlines.add(cache.policy().expireVariably().orElseThrow()
+                    .getExpiresAfter(groupRegistry.key(TENANT_MAPPER_GROUP, "tenant-" + i)).orElseThrow());
+        }
+
+        assertThat(deadlines).hasSizeGreaterThan(1)
+                .allSatisfy(ttl -> assertThat(ttl).isBetween(Duration.ofMinutes(12).multipliedBy(80).dividedBy(100),
+                        Duration.ofMinutes(12)));
+    }
+
+    @Test
+    @DisplayName("Should serve a stale value within the grace window while refreshing it in the background")
+    void testStaleWhileRevalidate_ServesStaleAndRefreshes() throws Exception {
+        CacheTtlProperties properties = new CacheTtlProperties();
+        properties.getKeys().put(TENANT_MAPPER_GROUP, Duration.ofMinutes(12));
+        CacheTtlProperties.GroupExpiry expiry = new CacheTtlProperties.GroupExpiry();
+        expiry.setStaleWhileRevalidate(Duration.ofMinutes(2));
+        properties.getExpiry().put(TENANT_MAPPER_GROUP, expiry);
+        groupRegistry.reload(TtlRuleIndex.compile(properties));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch refreshStarted = new CountDownLatch(1);
+        CountDownLatch releaseRefresh = new CountDownLatch(1);
+        GroupLoader<String> loader = subKey -> {
+            int load = loads.incrementAndGet();
+            if (load == 2) {
+                refreshStarted.countDown();
+                releaseRefresh.await();
+            }
+            return "gateway-v" + load;
+        };
+
+        assertThat(cacheService.get(TENANT_MAPPER_GROUP, TENANT_ID, String.class, loader)).contains("gateway-v1");
+        ticker.advance(Duration.ofMinutes(13));
+
+        assertThat(cacheService.get(TENANT_MAPPER_GROUP, TENANT_ID, String.class)).isEmpty();
+        assertThat(cacheService.get(TENANT_MAPPER_GROUP, TENANT_ID, String.class, loader)).contains("gateway-v1");
+        assertThat(refreshStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(cacheService.get(TENANT_MAPPER_GROUP, TENANT_ID, String.class, loader)).contains("gateway-v1");
+        releaseRefresh.countDown();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!cacheService.get(TENANT_MAPPER_GROUP, TENANT_ID, String.class).equals(Optional.of("gateway-v2"))
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(cacheService.get(TENANT_MAPPER_GROUP, TENANT_ID, String.class)).contains("gateway-v2");
+        assertThat(loads).hasValue(2);
+
+        ticker.advance(Duration.ofMinutes(15));
+        assertThat(cacheService.get(TENANT_MAPPER_GROUP, TENANT_ID, String.class, loader)).contains("gateway-v3");
+    }
+
+    @Test
+    @DisplayName("Should cache the absence of a value for the group's negative TTL until a put replaces it")
+    void testNegativeCaching_ShortTtlAndOverwrittenByPut() {
+        CacheTtlProperties properties = new CacheTtlProperties();
+        properties.getKeys().put(TENANT_MAPPER_GROUP, Duration.ofMinutes(12));
+        properties.getNegative().put(TENANT_MAPPER_GROUP, Duration.ofSeconds(30));
+        groupRegistry.reload(TtlRuleIndex.compile(properties));
+        AtomicInteger loads = new AtomicInteger();
+        GroupLoader<TenantMapper> loader = subKey -> {
+            loads.incrementAndGet();
+            return null;
+        };
+        CacheKey key = groupRegistry.key(TENANT_MAPPER_GROUP, TENANT_ID);
+
+        assertThat(cacheService.get(TENANT_MAPPER_GROUP, TENANT_ID, TenantMapper.class, loader)).isEmpty();
+        assertThat(cacheService.get(TENANT_MAPPER_GROUP, TENANT_ID, TenantMapper.class, loader)).isEmpty();
+        assertThat(cacheService.getAll(TENANT_MAPPER_GROUP, List.of(TENANT_ID, "tenant-2"), TenantMapper.class, loader))
+                .isEmpty();
+        assertThat(loads).hasValue(2);
+        assertThat(cache.policy().expireVariably().orElseThrow().getExpiresAfter(key)).contains(Duration.ofSeconds(30));
+
+        GroupStatsSnapshot stats = statistics.snapshot(groupRegistry.group(TENANT_MAPPER_GROUP));
+        assertThat(stats.negativeLoadCount()).isEqualTo(2);
+        assertThat(stats.loadSuccessCount()).isZero();
+        assertThat(stats.negativeHitCount()).isEqualTo(2);
+        assertThat(stats.hitCount()).isZero();
+        assertThat(stats.missCount()).isEqualTo(2);
+
+        cacheService.put(TENANT_MAPPER_GROUP, TENANT_ID, tenantMapper(TENANT_ID));
+        assertThat(cacheService.get(TENANT_MAPPER_GROUP, TENANT_ID, TenantMapper.class)).contains(tenantMapper(TENANT_ID));
+        assertThat(cache.policy().expireVariably().orElseThrow().getExpiresAfter(key)).contains(Duration.ofMinutes(12));
+
+        ticker.advance(Duration.ofSeconds(31));
+        assertThat(cacheService.get(TENANT_MAPPER_GROUP, "tenant-2", TenantMapper.class, loader)).isEmpty();
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("Should never return a cached absence as a value, even to callers asking for Object")
+    void testNegativeCaching_HiddenFromObjectReads() {
+        CacheTtlProperties properties = new CacheTtlProperties();
+        properties.getNegative().put(TENANT_MAPPER_GROUP, Duration.ofSeconds(30));
+        groupRegistry.reload(TtlRuleIndex.compile(properties));
+        GroupLoader<Object> loader = subKey -> null;
+
+        assertThat(cacheService.get(TENANT_MAPPER_GROUP, TENANT_ID, Object.class, loader)).isEmpty();
+        assertThat(cacheService.get(TENANT_MAPPER_GROUP, TENANT_ID, Object.class)).isEmpty();
+        assertThat(cacheService.getAll(TENANT_MAPPER_GROUP, List.of(TENANT_ID, "tenant-2"), Object.class, loader)).isEmpty();
+        assertThat(cacheService.getAll(TENANT_MAPPER_GROUP, List.of(TENANT_ID, "tenant-2"), Object.class)).isEmpty();
+        CacheRegion<Object> region = cacheService.region(TENANT_MAPPER_GROUP, Object.class);
+        assertThat(region.getOrNull(TENANT_ID)).isNull();
+        assertThat(region.get("tenant-3", loader)).isNull();
+        assertThat(region.getOrNull("tenant-3")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should store equal value components once in canonicalized groups and report the bytes saved")
+    void testValueCanonicalizer_SharesEqualComponents() {
+        TimeExpiringCacheService canonicalService = newService(new CacheSegments(cache), OffHeapTier.disabled(),
+                LoadCoalescer.disabled(), new ValueCanonicalizer(Set.of(TENANT_MAPPER_GROUP, "matrix.event.setting"), statistics));
+        canonicalService.put(TENANT_MAPPER_GROUP, "tenant-1", tenantMapper("tenant-1"));
+        canonicalService.put(TENANT_MAPPER_GROUP, "tenant-2", new TenantMapper("tenant-2", "odsyId123",
+                new String("us-east-1"), new String(tenantMapper("tenant-2").helixIngestionGW()), true));
+        canonicalService.put("matrix.event.setting", "tenant-1",
+                new TenantEventSetting(new ArrayList<>(List.of("ens-1", "ens-2")), List.of("dlp-1")));
+        canonicalService.put("matrix.event.setting", "tenant-2",
+                new TenantEventSetting(new ArrayList<>(List.of(new String("ens-1"), "ens-2")), List.of("dlp-1")));
+        cacheService.put("tracing", "tenant-1", new String("us-east-1"));
+
+        TenantMapper first = canonicalService.get(TENANT_MAPPER_GROUP, "tenant-1", TenantMapper.class).orElseThrow();
+        TenantMapper second = canonicalService.get(TENANT_MAPPER_GROUP, "tenant-2", TenantMapper.class).orElseThrow();
+        assertThat(second).isEqualTo(tenantMapper("tenant-2"));
+        assertThat(second.region()).isSameAs(first.region());
+        assertThat(second.helixIngestionGW()).isSameAs(first.helixIngestionGW());
+        assertThat(canonicalService.get("matrix.event.setting", "tenant-2", TenantEventSetting.class).orElseThrow())
+                .isSameAs(canonicalService.get("matrix.event.setting", "tenant-1", TenantEventSetting.class).orElseThrow());
+        assertThat(canonicalService.get("tracing", "tenant-1", String.class).orElseThrow()).isNotSameAs(first.region());
+
+        assertThat(statistics.snapshot(groupRegistry.group(TENANT_MAPPER_GROUP)).canonicalSavedBytes()).isPositive();
+        assertThat(statistics.snapshot(groupRegistry.group("matrix.event.setting")).canonicalSavedBytes()).isPositive();
+        assertThat(statistics.snapshot(groupRegistry.group("tracing")).canonicalSavedBytes()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should give hot, stable keys of an adaptive group a longer TTL and cold or churny keys a shorter one")
+    void testAdaptiveTtl_FollowsReadsAndUpdates() {
+        CacheTtlProperties properties = new CacheTtlProperties();
+        properties.getKeys().put(TENANT_MAPPER_GROUP, Duration.ofMinutes(10));
+        CacheTtlProperties.GroupExpiry expiry = new CacheTtlProperties.GroupExpiry();
+        expiry.setAdaptiveMinTtl(Duration.ofMinutes(2));
+        expiry.setAdaptiveMaxTtl(Duration.ofMinutes(40));
+        properties.getExpiry().put(TENANT_MAPPER_GROUP, expiry);
+        groupRegistry.reload(TtlRuleIndex.compile(properties));
+        GroupLoader<TenantMapper> loader = TimeExpiringCacheServiceTest::tenantMapper;
+        var expiration = cache.policy().expireVariably().orElseThrow();
+
+        cacheService.get(TENANT_MAPPER_GROUP, "hot", TenantMapper.class, loader);
+        assertThat(expiration.getExpiresAfter(groupRegistry.key(TENANT_MAPPER_GROUP, "hot"))).contains(Duration.ofMinutes(5));
+        for (int i = 0; i < 20; i++) {
+            cacheService.get(TENANT_MAPPER_GROUP, "hot", TenantMapper.class, loader);
+        }
+        for (int i = 0; i < 10; i++) {
+            cacheService.put(TENANT_MAPPER_GROUP, "churny", tenantMapper("churny-" + i));
+        }
+        cacheService.get(TENANT_MAPPER_GROUP, "churny", TenantMapper.class);
+        assertThat(expiration.getExpiresAfter(groupRegistry.key(TENANT_MAPPER_GROUP, "churny")))
+                .contains(Duration.ofMinutes(2));
+
+        ticker.advance(Duration.ofMinutes(6));
+        cacheService.get(TENANT_MAPPER_GROUP, "hot", TenantMapper.class, loader);
+        cacheService.get(TENANT_MAPPER_GROUP, "cold", TenantMapper.class, loader);
+        assertThat(expiration.getExpiresAfter(groupRegistry.key(TENANT_MAPPER_GROUP, "hot"))).contains(Duration.ofMinutes(40));
+        assertThat(expiration.getExpiresAfter(groupRegistry.key(TENANT_MAPPER_GROUP, "cold"))).contains(Duration.ofMinutes(5));
+
+        expiry.setAdaptiveMaxTtl(Duration.ofMinutes(1));
+        assertThatThrownBy(() -> TtlRuleIndex.compile(properties)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should gather concurrent single-key misses into one bulk load")
+    void testLoadCoalescer_BatchesMisses() throws Exception {
+        LoadCoalescer coalescer = new LoadCoalescer(Set.of(TENANT_MAPPER_GROUP), Duration.ofSeconds(5), 8,
+                Duration.ofSeconds(30), ForkJoinPool.commonPool());
+        coalescer.start();
+        TimeExpiringCacheService coalescingService = newService(new CacheSegments(cache), OffHeapTier.disabled(), coalescer);
+        List<Set<String>> bulkCalls = new ArrayList<>();
+        coalescingService.registerLoader(TENANT_MAPPER_GROUP, new GroupLoader<TenantMapper>() {
+            @Override
+            public TenantMapper load(String subKey) {
+                throw new AssertionError("single-key load should not be used");
+            }
+
+            @Override
+            public Map<String, TenantMapper> loadAll(Set<String> subKeys) {
+                synchronized (bulkCalls) {
+                    bulkCalls.add(new HashSet<>(subKeys));
+                }
+                Map<String, TenantMapper> values = new HashMap<>();
+                subKeys.stream().filter(subKey -> !subKey.equals("tenant-7"))
+                        .forEach(subKey -> values.put(subKey, tenantMapper(subKey)));
+                return values;
+            }
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Optional<TenantMapper>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                String tenantId = "tenant-" + i;
+                results.add(executor.submit(() -> coalescingService.get(TENANT_MAPPER_GROUP, tenantId, TenantMapper.class)));
+            }
+            for (int i = 0; i < 8; i++) {
+                Optional<TenantMapper> result = results.get(i).get(5, TimeUnit.SECONDS);
+                if (i == 7) {
+                    assertThat(result).isEmpty();
+                } else {
+                    assertThat(result).contains(tenantMapper("tenant-" + i));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            coalescer.stop();
+        }
+        assertThat(bulkCalls.get(0)).hasSize(8);
+        assertThat(coalescingService.get(TENANT_MAPPER_GROUP, "tenant-3", TenantMapper.class))
+                .contains(tenantMapper("tenant-3"));
+        assertThat(bulkCalls).hasSize(1);
+
+        // A stopped coalescer covers no group, and a batch joined during stop() is sent right away
+        assertThat(coalescer.covers(groupRegistry.group(TENANT_MAPPER_GROUP))).isFalse();
+        assertThat(coalescer.load(coalescingService.loaderFor(groupRegistry.group(TENANT_MAPPER_GROUP)), "tenant-9"))
+                .isEqualTo(tenantMapper("tenant-9"));
+        assertThat(bulkCalls).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Should refresh stale entries of a coalesced group on a single-thread load executor")
+    void testLoadCoalescer_RefreshesOnSingleThreadExecutor() throws Exception {
+        CacheTtlProperties properties = new CacheTtlProperties();
+        properties.getKeys().put(TENANT_MAPPER_GROUP, Duration.ofMinutes(12));
+        CacheTtlProperties.GroupExpiry expiry = new CacheTtlProperties.GroupExpiry();
+        expiry.setStaleWhileRevalidate(Duration.ofMinutes(2));
+        properties.getExpiry().put(TENANT_MAPPER_GROUP, expiry);
+        groupRegistry.reload(TtlRuleIndex.compile(properties));
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+        LoadCoalescer coalescer = new LoadCoalescer(Set.of(TENANT_MAPPER_GROUP), Duration.ofMillis(20), 64,
+                Duration.ofSeconds(30), executor);
+        coalescer.start();
+        TimeExpiringCacheService coalescingService = newService(new CacheSegments(cache), OffHeapTier.disabled(),
+                coalescer, ValueCanonicalizer.disabled(), executor);
+        coalescingService.registerLoader(TENANT_MAPPER_GROUP, new GroupLoader<String>() {
+            @Override
+            public String load(String subKey) {
+                throw new AssertionError("single-key load should not be used");
+            }
+
+            @Override
+            public Map<String, String> loadAll(Set<String> subKeys) {
+                Map<String, String> values = new HashMap<>();
+                subKeys.forEach(subKey -> values.put(subKey, subKey + "-v2"));
+                return values;
+            }
+        });
+        try {
+            for (int i = 0; i < 4; i++) {
+                coalescingService.put(TENANT_MAPPER_GROUP, "tenant-" + i, "tenant-" + i + "-v1");
+            }
+            ticker.advance(Duration.ofMinutes(13));
+            for (int i = 0; i < 4; i++) {
+                assertThat(coalescingService.get(TENANT_MAPPER_GROUP, "tenant-" + i, String.class))
+                        .contains("tenant-" + i + "-v1");
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!coalescingService.get(TENANT_MAPPER_GROUP, "tenant-3", String.class).equals(Optional.of("tenant-3-v2"))
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            for (int i = 0; i < 4; i++) {
+                assertThat(coalescingService.get(TENANT_MAPPER_GROUP, "tenant-" + i, String.class))
+                        .contains("tenant-" + i + "-v2");
+            }
+        } finally {
+            coalescer.stop();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should complete every caller of a batch that returned null, was rejected or took too long")
+    void testLoadCoalescer_CompletesEveryCaller() throws Exception {
+        GroupLoader<String> nullLoader = new GroupLoader<>() {
+            @Override
+            public String load(String subKey) {
+                throw new AssertionError("single-key load should not be used");
+            }
+
+            @Override
+            public Map<String, String> loadAll(Set<String> subKeys) {
+                return null;
+            }
+        };
+        LoadCoalescer coalescer = new LoadCoalescer(Set.of(TENANT_MAPPER_GROUP), Duration.ofSeconds(5), 1,
+                Duration.ofSeconds(5), ForkJoinPool.commonPool());
+        coalescer.start();
+        try {
+            assertThat(coalescer.load(nullLoader, "tenant-1")).isNull();
+        } finally {
+            coalescer.stop();
+        }
+
+        LoadCoalescer rejecting = new LoadCoalescer(Set.of(TENANT_MAPPER_GROUP), Duration.ofSeconds(5), 1,
+                Duration.ofSeconds(5), task -> {
+                    throw new RejectedExecutionException("load executor shut down");
+                });
+        rejecting.start();
+        try {
+            assertThatThrownBy(() -> rejecting.load(nullLoader, "tenant-1")).isInstanceOf(RejectedExecutionException.class);
+        } finally {
+            rejecting.stop();
+        }
+
+        LoadCoalescer stalled = new LoadCoalescer(Set.of(TENANT_MAPPER_GROUP), Duration.ofSeconds(5), 1,
+                Duration.ofMillis(50), task -> { });
+        stalled.start();
+        try {
+            assertThatThrownBy(() -> stalled.load(nullLoader, "tenant-1")).isInstanceOf(TimeoutException.class);
+        } finally {
+            stalled.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Should deliver the removals of a group to its subscribers, dropping the oldest on overflow")
+    void testSubscribeRemovals_BoundedDropOldest() {
+        RemovalSubscription expirations = cacheService.subscribeRemovals(TENANT_MAPPER_GROUP, 2,
+                Set.of(RemovalCause.EXPIRED, RemovalCause.REPLACED));
+        for (int i = 0; i < 3; i++) {
+            cacheService.put(TENANT_MAPPER_GROUP, "tenant-" + i, tenantMapper("tenant-" + i));
+        }
+        cacheService.put(TENANT_MAPPER_GROUP, "tenant-0", tenantMapper(TENANT_ID));
+        cacheService.put("matrix.event.setting", TENANT_ID, "settings");
+        cacheService.invalidate(TENANT_MAPPER_GROUP, "tenant-1");
+
+        RemovalEvent replaced = expirations.poll();
+        assertThat(replaced).isEqualTo(new RemovalEvent(TENANT_MAPPER_GROUP, "tenant-0", tenantMapper("tenant-0"),
+                RemovalCause.REPLACED));
+        assertThat(expirations.poll()).isNull();
+
+        ticker.advance(Duration.ofMinutes(13));
+        cache.cleanUp();
+        List<RemovalEvent> expired = new ArrayList<>();
+        assertThat(expirations.drain(expired::add, 10)).isEqualTo(2);
+        assertThat(expired).extracting(RemovalEvent::cause).containsOnly(RemovalCause.EXPIRED);
+        assertThat(expirations.droppedCount()).isZero();
+
+        for (int i = 0; i < 5; i++) {
+            cacheService.put(TENANT_MAPPER_GROUP, "tenant-x", tenantMapper("tenant-" + i));
+        }
+        assertThat(expirations.droppedCount()).isEqualTo(2);
+        assertThat(expirations.poll().value()).isEqualTo(tenantMapper("tenant-2"));
+        assertThat(expirations.poll().value()).isEqualTo(tenantMapper("tenant-3"));
+
+        expirations.close();
+        cacheService.put(TENANT_MAPPER_GROUP, "tenant-x", tenantMapper(TENANT_ID));
+        assertThat(expirations.poll()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should hand out a typed region backed by its own cache, keeping existing entries")
+    void testRegion_DedicatedTypedCache() {
+        CacheSegments segments = new CacheSegments(cache, Map.of(),
+                groupLimit -> groupLimit.applyTo(newCacheBuilder()).build(), migratedEntries);
+        TimeExpiringCacheService regionService = newService(segments, OffHeapTier.disabled(), LoadCoalescer.disabled());
+        regionService.put(TENANT_MAPPER_GROUP, TENANT_ID, tenantMapper(TENANT_ID));
+        regionService.put("matrix.event.setting", TENANT_ID, "settings");
+        ticker.advance(Duration.ofMinutes(2));
+        RemovalSubscription removals = regionService.subscribeRemovals(TENANT_MAPPER_GROUP, 8, EnumSet.allOf(RemovalCause.class));
+
+        CacheRegion<TenantMapper> region = regionService.region(TENANT_MAPPER_GROUP, TenantMapper.class);
+        Cache<CacheKey, Object> regionCache = segments.cacheFor(groupRegistry.group(TENANT_MAPPER_GROUP));
+
+        assertThat(regionService.region(TENANT_MAPPER_GROUP, TenantMapper.class)).isSameAs(region);
+        assertThat(regionCache).isNotSameAs(cache);
+        assertThat(cache.asMap()).containsOnlyKeys(groupRegistry.key("matrix.event.setting", TENANT_ID));
+        assertThat(groupKeyIndex.keys(groupRegistry.group(TENANT_MAPPER_GROUP)))
+                .containsExactly(groupRegistry.key(TENANT_MAPPER_GROUP, TENANT_ID));
+        assertThat(regionCache.policy().expireVariably().orElseThrow()
+                .getExpiresAfter(groupRegistry.key(TENANT_MAPPER_GROUP, TENANT_ID))).contains(Duration.ofMinutes(10));
+        // Moving the entry is not a removal
+        assertThat(removals.poll()).isNull();
+        assertThat(statistics.snapshot(groupRegistry.group(TENANT_MAPPER_GROUP)).removalsByCause().values())
+                .containsOnly(0L);
+        assertThat(region.getOrNull(TENANT_ID)).isEqualTo(tenantMapper(TENANT_ID));
+        assertThat(region.getOrNull("unknown")).isNull();
+        assertThat(region.get("tenant-2", TimeExpiringCacheServiceTest::tenantMapper)).isEqualTo(tenantMapper("tenant-2"));
+        assertThat(regionService.get(TENANT_MAPPER_GROUP, "tenant-2", TenantMapper.class)).contains(tenantMapper("tenant-2"));
+
+        region.invalidate(TENANT_ID);
+        assertThat(region.getOrNull(TENANT_ID)).isNull();
+        assertThat(groupKeyIndex.keys(groupRegistry.group(TENANT_MAPPER_GROUP)))
+                .containsExactly(groupRegistry.key(TENANT_MAPPER_GROUP, "tenant-2"));
+        assertThatThrownBy(() -> regionService.region(TENANT_MAPPER_GROUP, String.class))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should record hits, misses, loads and expirations per group")
+    void testStatistics_PerGroup() {
+        cacheService.put("matrix.event.setting", TENANT_ID, "settings");
+        cacheService.get("matrix.event.setting", TENANT_ID, String.class);
+        cacheService.get(TENANT_MAPPER_GROUP, TENANT_ID, TenantMapper.class);
+        cacheService.get(TENANT_MAPPER_GROUP, TENANT_ID, TenantMapper.class, TimeExpiringCacheServiceTest::tenantMapper);
+        cacheService.get(TENANT_MAPPER_GROUP, TENANT_ID, TenantMapper.class);
+
+        GroupStatsSnapshot mapperStats = statistics.snapshot(groupRegistry.group(TENANT_MAPPER_GROUP));
+        GroupStatsSnapshot settingStats = statistics.snapshot(groupRegistry.group("matrix.event.setting"));
+        assertThat(mapperStats.hitCount()).isEqualTo(1);
+        assertThat(mapperStats.missCount()).isEqualTo(2);
+        assertThat(mapperStats.loadSuccessCount()).isEqualTo(1);
+        assertThat(mapperStats.entryCount()).isEqualTo(1);
+        assertThat(mapperStats.loadLatencyPercentileNanos(99)).isPositive();
+        assertThat(settingStats.hitCount()).isEqualTo(1);
+        assertThat(settingStats.missCount()).isZero();
+
+        ticker.advance(Duration.ofMinutes(13));
+        cache.cleanUp();
+        assertThat(statistics.snapshot(groupRegistry.group(TENANT_MAPPER_GROUP)).removalCount(RemovalCause.EXPIRED)).isEqualTo(1);
+    }
+}
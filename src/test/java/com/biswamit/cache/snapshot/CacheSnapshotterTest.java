@@ -0,0 +1,155 @@
+package com.biswamit.cache.snapshot;
+
+import com.biswamit.cache.FakeTicker;
+import com.biswamit.cache.config.CacheSegments;
+import com.biswamit.cache.config.CacheTtlProperties;
+import com.biswamit.cache.config.PerKeyExpiryPolicy;
+import com.biswamit.cache.config.TtlRuleIndex;
+import com.biswamit.cache.config.ValueCanonicalizer;
+import com.biswamit.cache.key.CacheGroupRegistry;
+import com.biswamit.cache.key.CacheKey;
+import com.biswamit.cache.key.GroupKeyIndex;
+import com.biswamit.cache.model.TenantEventSetting;
+import com.biswamit.cache.model.TenantMapper;
+import com.biswamit.cache.stats.CacheStatistics;
+import com.biswamit.cache.tier.SerializerRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for writing and restoring the warm-start snapshot.
+ */
+class CacheSnapshotterTest {
+
+    private static final String MAPPER_GROUP = "odyssey.tenant.mapper";
+    private static final String SETTING_GROUP = "matrix.event.setting";
+    private static final String TENANT_ID = "a1b2c3d4-e5f6-4a7b-8c9d-0e1f2a3b4c5d";
+    private static final Instant SNAPSHOT_TIME = Instant.parse("2024-01-01T00:00:00Z");
+
+    @TempDir
+    Path tempDir;
+
+    private FakeTicker ticker;
+    private CacheTtlProperties properties;
+    private CacheGroupRegistry groupRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CacheTtlProperties();
+        properties.getKeys().put(MAPPER_GROUP, Duration.ofMinutes(12));
+        properties.getKeys().put(SETTING_GROUP, Duration.ofMinutes(3));
+        properties.getSnapshot().setFile(tempDir.resolve("cache.snapshot"));
+        ticker = new FakeTicker();
+        groupRegistry = new CacheGroupRegistry(TtlRuleIndex.compile(properties));
+    }
+
+    private Cache<CacheKey, Object> newCache(GroupKeyIndex groupKeyIndex) {
+        return Caffeine.newBuilder()
+                .expireAfter(new PerKeyExpiryPolicy())
+                .ticker(ticker)
+                .removalListener(groupKeyIndex)
+                .build();
+    }
+
+    private CacheSnapshotter snapshotter(Cache<CacheKey, Object> cache, GroupKeyIndex groupKeyIndex, Instant now) {
+        return snapshotter(cache, groupKeyIndex, now, ValueCanonicalizer.disabled());
+    }
+
+    private CacheSnapshotter snapshotter(Cache<CacheKey, Object> cache, GroupKeyIndex groupKeyIndex, Instant now,
+                                         ValueCanonicalizer valueCanonicalizer) {
+        return new CacheSnapshotter(new CacheSegments(cache), groupRegistry, groupKeyIndex,
+                SerializerRegistry.withDefaults(), valueCanonicalizer, properties.getSnapshot(),
+                Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    @Test
+    @DisplayName("Should restore unexpired entries with their remaining TTL less the downtime")
+    void testWriteAndRestore_KeepsRemainingTtl() throws IOException {
+        GroupKeyIndex groupKeyIndex = new GroupKeyIndex();
+        Cache<CacheKey, Object> cache = newCache(groupKeyIndex);
+        TenantMapper mapper = new TenantMapper(TENANT_ID, "odsyId123", "us-east-1", null, true);
+        cache.put(groupRegistry.key(MAPPER_GROUP, TENANT_ID), mapper);
+        cache.put(groupRegistry.key(SETTING_GROUP, TENANT_ID), new TenantEventSetting(List.of("ens"), List.of()));
+        cache.put(groupRegistry.key(MAPPER_GROUP, "unsupported"), new Object());
+        ticker.advance(Duration.ofMinutes(1));
+
+        assertThat(snapshotter(cache, groupKeyIndex, SNAPSHOT_TIME).write()).isEqualTo(2);
+
+        GroupKeyIndex restoredIndex = new GroupKeyIndex();
+        Cache<CacheKey, Object> restoredCache = newCache(restoredIndex);
+        int restored = snapshotter(restoredCache, restoredIndex, SNAPSHOT_TIME.plus(Duration.ofMinutes(3))).restore();
+
+        CacheKey mapperKey = groupRegistry.key(MAPPER_GROUP, TENANT_ID);
+        assertThat(restored).isEqualTo(1);
+        assertThat(restoredCache.getIfPresent(mapperKey)).isEqualTo(mapper);
+        assertThat(restoredCache.policy().expireVariably().orElseThrow().getExpiresAfter(mapperKey))
+                .contains(Duration.ofMinutes(8));
+        assertThat(restoredIndex.keys(groupRegistry.group(MAPPER_GROUP))).containsExactly(mapperKey);
+    }
+
+    @Test
+    @DisplayName("Should not overwrite entries written before the restore")
+    void testRestore_KeepsFresherEntries() throws IOException {
+        GroupKeyIndex groupKeyIndex = new GroupKeyIndex();
+        Cache<CacheKey, Object> cache = newCache(groupKeyIndex);
+        cache.put(groupRegistry.key(SETTING_GROUP, TENANT_ID), "stale");
+        snapshotter(cache, groupKeyIndex, SNAPSHOT_TIME).write();
+
+        Cache<CacheKey, Object> restoredCache = newCache(groupKeyIndex);
+        restoredCache.put(groupRegistry.key(SETTING_GROUP, TENANT_ID), "fresh");
+
+        assertThat(snapshotter(restoredCache, groupKeyIndex, SNAPSHOT_TIME).restore()).isZero();
+        assertThat(restoredCache.getIfPresent(groupRegistry.key(SETTING_GROUP, TENANT_ID))).isEqualTo("fresh");
+    }
+
+    @Test
+    @DisplayName("Should canonicalize restored values like loaded ones")
+    void testRestore_CanonicalizesValues() throws IOException {
+        GroupKeyIndex groupKeyIndex = new GroupKeyIndex();
+        Cache<CacheKey, Object> cache = newCache(groupKeyIndex);
+        cache.put(groupRegistry.key(SETTING_GROUP, "tenant-1"), new TenantEventSetting(List.of("ens"), List.of()));
+        cache.put(groupRegistry.key(SETTING_GROUP, "tenant-2"), new TenantEventSetting(List.of("ens"), List.of()));
+        snapshotter(cache, groupKeyIndex, SNAPSHOT_TIME).write();
+
+        GroupKeyIndex restoredIndex = new GroupKeyIndex();
+        Cache<CacheKey, Object> restoredCache = newCache(restoredIndex);
+        CacheStatistics statistics = new CacheStatistics(restoredIndex);
+        ValueCanonicalizer valueCanonicalizer = new ValueCanonicalizer(Set.of(SETTING_GROUP), statistics);
+
+        assertThat(snapshotter(restoredCache, restoredIndex, SNAPSHOT_TIME, valueCanonicalizer).restore()).isEqualTo(2);
+        assertThat(restoredCache.getIfPresent(groupRegistry.key(SETTING_GROUP, "tenant-2")))
+                .isSameAs(restoredCache.getIfPresent(groupRegistry.key(SETTING_GROUP, "tenant-1")));
+        assertThat(statistics.snapshot(groupRegistry.group(SETTING_GROUP)).canonicalSavedBytes()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should delete the temporary file when a write fails")
+    void testWrite_DeletesTempFileOnFailure() throws IOException {
+        GroupKeyIndex groupKeyIndex = new GroupKeyIndex();
+        Cache<CacheKey, Object> cache = newCache(groupKeyIndex);
+        cache.put(groupRegistry.key(MAPPER_GROUP, TENANT_ID), new TenantMapper(TENANT_ID, "odsyId123", "us-east-1", null, true));
+        Path snapshotFile = properties.getSnapshot().getFile();
+        // A non-empty directory in place of the snapshot makes the final move fail
+        Files.createDirectories(snapshotFile.resolve("occupied"));
+
+        assertThatThrownBy(() -> snapshotter(cache, groupKeyIndex, SNAPSHOT_TIME).write()).isInstanceOf(IOException.class);
+        assertThat(snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp")).doesNotExist();
+    }
+}
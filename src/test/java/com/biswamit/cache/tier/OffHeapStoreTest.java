@@ -0,0 +1,96 @@
+package com.biswamit.cache.tier;
+
+import com.biswamit.cache.FakeTicker;
+import com.biswamit.cache.config.CacheTtlProperties;
+import com.biswamit.cache.config.TtlRuleIndex;
+import com.biswamit.cache.key.CacheGroupRegistry;
+import com.biswamit.cache.model.TenantEventSetting;
+import com.biswamit.cache.model.TenantMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the block allocation, eviction and expiry of the {@link OffHeapStore}.
+ */
+class OffHeapStoreTest {
+
+    private static final long TTL_NANOS = Duration.ofMinutes(10).toNanos();
+
+    private FakeTicker ticker;
+    private CacheGroupRegistry groupRegistry;
+    private OffHeapStore store;
+
+    @BeforeEach
+    void setUp() {
+        ticker = new FakeTicker();
+        groupRegistry = new CacheGroupRegistry(TtlRuleIndex.compile(new CacheTtlProperties()));
+        store = new OffHeapStore(1024, 64, SerializerRegistry.withDefaults(), ticker);
+    }
+
+    @Test
+    @DisplayName("Should round-trip values spanning several blocks and evict the oldest when full")
+    void testPutAndRemove_EvictsOldestWhenFull() {
+        TenantMapper mapper = new TenantMapper("tenant", null, "us-east-1", "https://ingest.example.com/events", null);
+        TenantEventSetting setting = new TenantEventSetting(List.of("ens-a", "ens-b"), null);
+        store.put(groupRegistry.key("mapper", "tenant"), mapper, TTL_NANOS);
+        store.put(groupRegistry.key("setting", "tenant"), setting, TTL_NANOS);
+
+        assertThat(store.remove(groupRegistry.lookupKey("mapper", "tenant")).value()).isEqualTo(mapper);
+        assertThat(store.remove(groupRegistry.lookupKey("setting", "tenant")).value()).isEqualTo(setting);
+        assertThat(store.usedBytes()).isZero();
+
+        for (int i = 0; i < 20; i++) {
+            store.put(groupRegistry.key("flags", "tenant-" + i), "value-" + i, TTL_NANOS);
+        }
+        assertThat(store.size()).isEqualTo(16);
+        assertThat(store.evictionCount()).isEqualTo(4);
+        assertThat(store.remove(groupRegistry.lookupKey("flags", "tenant-0"))).isNull();
+        assertThat(store.remove(groupRegistry.lookupKey("flags", "tenant-19")).value()).isEqualTo("value-19");
+    }
+
+    @Test
+    @DisplayName("Should keep the remaining TTL and drop expired entries on read and on sweep")
+    void testExpiry_RemainingTtlAndSweep() {
+        store.put(groupRegistry.key("flags", "short"), "short", Duration.ofMinutes(1).toNanos());
+        store.put(groupRegistry.key("flags", "long"), "long", TTL_NANOS);
+        store.put(groupRegistry.key("flags", "other"), "other", Duration.ofMinutes(1).toNanos());
+        store.put(groupRegistry.key("flags", "unsupported"), new Object(), TTL_NANOS);
+
+        ticker.advance(Duration.ofMinutes(2));
+
+        assertThat(store.remove(groupRegistry.lookupKey("flags", "short"))).isNull();
+        assertThat(store.sweep()).isEqualTo(1);
+        OffHeapStore.Entry entry = store.remove(groupRegistry.lookupKey("flags", "long"));
+        assertThat(entry.remainingNanos()).isEqualTo(Duration.ofMinutes(8).toNanos());
+        assertThat(store.size()).isZero();
+        assertThat(store.usedBytes()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should drop and take absent keys without waiting for the store's lock")
+    void testAbsentKeys_SkipTheLock() throws Exception {
+        CompletableFuture<Void> absent;
+        synchronized (store) {
+            absent = CompletableFuture.runAsync(() -> {
+                store.invalidate(groupRegistry.key("flags", "absent"));
+                assertThat(store.remove(groupRegistry.lookupKey("flags", "absent"))).isNull();
+            });
+            absent.get(10, TimeUnit.SECONDS);
+        }
+
+        store.put(groupRegistry.key("flags", "stored"), "stored", TTL_NANOS);
+        store.invalidate(groupRegistry.key("flags", "stored"));
+        assertThat(store.size()).isZero();
+        assertThat(store.usedBytes()).isZero();
+        store.put(groupRegistry.key("flags", "stored"), "again", TTL_NANOS);
+        assertThat(store.remove(groupRegistry.lookupKey("flags", "stored")).value()).isEqualTo("again");
+    }
+}